@@ -0,0 +1,48 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Embedded H2 database seeded with {@code rows} tasks, matching {@code db/schema.sql}. Nine out
+ * of ten seeded tasks are done, like production, all of them in 2025. Priorities run from 0 to 4
+ * and one task in three has no due date.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    private final SingleConnectionDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    BenchmarkDatabase(String name, int rows) {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS tasks");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS tasks_archive");
+        jdbcTemplate.execute("CREATE TABLE tasks (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "done BOOLEAN NOT NULL, title VARCHAR(255), priority INTEGER DEFAULT 0 NOT NULL, due_date DATE, "
+                + "tenant VARCHAR(64) DEFAULT 'default' NOT NULL, done_at TIMESTAMP(6) WITH TIME ZONE, version BIGINT DEFAULT 0 NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_tasks_tenant_done_id ON tasks (tenant, done, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_tasks_tenant_rank ON tasks "
+                + "(tenant, done, priority DESC, due_date NULLS LAST, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_tasks_done_at ON tasks (done_at)");
+        jdbcTemplate.execute("CREATE TABLE tasks_archive (id BIGINT PRIMARY KEY, tenant VARCHAR(64) NOT NULL, "
+                + "title VARCHAR(255), priority INTEGER DEFAULT 0 NOT NULL, due_date DATE, done_at TIMESTAMP(6) WITH TIME ZONE, "
+                + "version BIGINT DEFAULT 0 NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_tasks_archive_tenant_id ON tasks_archive (tenant, id)");
+        jdbcTemplate.update("INSERT INTO tasks (done, title, priority, due_date, done_at) "
+                + "SELECT MOD(X, 10) <> 0, CONCAT('Task ', X), MOD(X * 7, 5), "
+                + "CASE WHEN MOD(X, 3) = 0 THEN NULL ELSE DATEADD(DAY, MOD(X * 13, 365), DATE '2026-01-01') END, "
+                + "CASE WHEN MOD(X, 10) <> 0 THEN DATEADD(SECOND, MOD(X * 31, 31536000), TIMESTAMP WITH TIME ZONE '2025-01-01 00:00:00Z') END "
+                + "FROM SYSTEM_RANGE(1, ?)", rows);
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    @Override
+    public void close() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+}
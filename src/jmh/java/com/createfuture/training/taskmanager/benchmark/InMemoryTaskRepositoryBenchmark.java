@@ -0,0 +1,83 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.InMemoryTaskRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the in-memory engine on one thread against every available core. The read mix is
+ * 90% findById and 10% findOpenAfter; the write mix flips done flags and replaces titles on random
+ * ids. Seeded like {@link BenchmarkDatabase}: nine out of ten tasks are done.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryTaskRepositoryBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private InMemoryTaskRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new InMemoryTaskRepository();
+        List<String> titles = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            titles.add("Task " + i);
+        }
+        List<Long> done = new ArrayList<>();
+        for (Task task : repository.addTasks(titles)) {
+            if (task.getId() % 10 != 0) {
+                done.add(task.getId());
+            }
+        }
+        repository.markDoneByIds(done);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object readMixSingleThread() {
+        return readMix();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object readMixAllCores() {
+        return readMix();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int writeMixSingleThread() {
+        return writeMix();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int writeMixAllCores() {
+        return writeMix();
+    }
+
+    private Object readMix() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = random.nextLong(1, rows + 1);
+        return random.nextInt(10) == 0 ? repository.findOpenAfter(id, 50) : repository.findById(id);
+    }
+
+    private int writeMix() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = random.nextLong(1, rows + 1);
+        return random.nextBoolean()
+                ? repository.markDoneById(id)
+                : repository.updateTask(new Task(id, "Task " + id, false));
+    }
+}
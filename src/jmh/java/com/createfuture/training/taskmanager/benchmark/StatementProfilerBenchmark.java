@@ -0,0 +1,59 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.profiling.ProfilingDataSource;
+import com.createfuture.training.taskmanager.profiling.StatementProfiler;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What statement profiling adds to the repository's hot reads: {@code off} queries the database
+ * directly, {@code on} through a {@link ProfilingDataSource}. findById is one row and the
+ * profiler's fixed cost per statement; findOpenAfter returns 50 rows, so it also shows the cost per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementProfilerBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({"off", "on"})
+    private String profiling;
+
+    private BenchmarkDatabase database;
+    private TaskRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase("profiler_" + profiling, ROWS);
+        JdbcTemplate jdbcTemplate = profiling.equals("on")
+                ? new JdbcTemplate(new ProfilingDataSource(database.jdbcTemplate().getDataSource(), new StatementProfiler(20, 1000)))
+                : database.jdbcTemplate();
+        repository = new JdbcTaskRepository(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Task findById() {
+        return repository.findById(ThreadLocalRandom.current().nextLong(1, ROWS + 1));
+    }
+
+    @Benchmark
+    public List<Task> findOpenAfter() {
+        return repository.findOpenAfter(ThreadLocalRandom.current().nextLong(ROWS), 50);
+    }
+}
@@ -0,0 +1,85 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.createfuture.training.taskmanager.repository.TaskArchiver;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot-table queries on a table where nine tasks in ten are done, before and after the archiver has
+ * moved the done ones to {@code tasks_archive}. {@code findAll} and {@code countAll} (the scan
+ * {@code reset} pays) should shrink with the table; {@code findTopN} and {@code findOpenAfter}
+ * already skip done rows through their indexes. {@code history} is the price of reading
+ * both tables. Setup prints how long archiving took.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskArchiveBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean archived;
+
+    private BenchmarkDatabase database;
+    private TaskRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase("archive_" + rows + "_" + archived, rows);
+        // Otherwise H2 answers a repeated query from its cached result
+        database.jdbcTemplate().execute("SET OPTIMIZE_REUSE_RESULTS 0");
+        repository = new JdbcTaskRepository(database.jdbcTemplate());
+        if (archived) {
+            TaskArchiver archiver = new TaskArchiver(List.of(database.jdbcTemplate().getDataSource()),
+                    Duration.ZERO, Duration.ZERO, 500, Duration.ZERO, event -> { }, null, new SimpleMeterRegistry());
+            long started = System.nanoTime();
+            long moved = archiver.archiveDoneBefore(Instant.now());
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("%n    archived %d tasks in %.1f s (%.0f tasks/s)%n", moved, seconds, moved / seconds);
+            archiver.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Task> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Integer countAll() {
+        return database.jdbcTemplate().queryForObject("SELECT COUNT(*) FROM tasks WHERE tenant = 'default'", Integer.class);
+    }
+
+    @Benchmark
+    public List<Task> findTopN() {
+        return repository.findTopN(10);
+    }
+
+    @Benchmark
+    public List<Task> findOpenAfter() {
+        return repository.findOpenAfter(rows / 2, 50);
+    }
+
+    @Benchmark
+    public List<Task> history() {
+        return repository.findDoneAfter(rows / 2, 50);
+    }
+}
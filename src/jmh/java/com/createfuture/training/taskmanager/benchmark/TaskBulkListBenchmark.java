@@ -0,0 +1,53 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read plus serialize for the full open list behind {@code GET /api/tasks}: {@code List<Task>}
+ * against the columnar form. Run with {@code -Pjmh.profilers=gc} to compare bytes allocated per
+ * operation ({@code gc.alloc.rate.norm}) and GC counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskBulkListBenchmark {
+
+    // One in ten seeded tasks is open, so these list 10k and 100k tasks
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BenchmarkDatabase database;
+    private TaskRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase("bulk_list_" + rows, rows);
+        repository = new JdbcTaskRepository(database.jdbcTemplate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public void taskList() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), repository.findOpen());
+    }
+
+    @Benchmark
+    public void taskColumns() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), repository.findOpenColumns());
+    }
+}
@@ -0,0 +1,77 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.TaskBulkResult;
+import com.createfuture.training.taskmanager.model.TaskSelector;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.createfuture.training.taskmanager.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks {@code batch} open tasks done: one service call per id, as N PATCH requests would, against
+ * one bulk call with per-id outcomes in a single transaction. The plain JDBC batch without
+ * outcomes is the floor. Every invocation starts from the same open tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskBulkMutationBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({"100", "1000", "10000"})
+    private int batch;
+
+    private BenchmarkDatabase database;
+    private JdbcTaskRepository repository;
+    private TaskService service;
+    private TransactionTemplate transactionTemplate;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase("bulk_" + batch, ROWS);
+        repository = new JdbcTaskRepository(database.jdbcTemplate());
+        service = new TaskService(repository);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database.jdbcTemplate().getDataSource()));
+        ids = database.jdbcTemplate().queryForList(
+                "SELECT id FROM tasks WHERE done = false ORDER BY id LIMIT ?", Long.class, batch);
+    }
+
+    @Setup(Level.Invocation)
+    public void reopen() {
+        database.jdbcTemplate().batchUpdate("UPDATE tasks SET done = false WHERE id = ?",
+                ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public int markDoneOneByOne() {
+        int updated = 0;
+        for (Long id : ids) {
+            updated += service.markDone(id) ? 1 : 0;
+        }
+        return updated;
+    }
+
+    @Benchmark
+    public TaskBulkResult markDoneBulk() {
+        return transactionTemplate.execute(status -> service.markDone(TaskSelector.ofIds(ids)));
+    }
+
+    @Benchmark
+    public int markDoneJdbcBatch() {
+        return transactionTemplate.execute(status -> repository.markDoneByIds(ids));
+    }
+}
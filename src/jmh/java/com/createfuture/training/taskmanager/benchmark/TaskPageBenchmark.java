@@ -0,0 +1,108 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.TaskManagerApplication;
+import com.createfuture.training.taskmanager.service.TaskDataVersion;
+import com.createfuture.training.taskmanager.service.TaskEvent;
+import com.createfuture.training.taskmanager.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The Thymeleaf page over HTTP with 10k open tasks, against a running application. {@code hit}
+ * serves the cached list fragment; {@code miss} bumps the data version before every request, so
+ * each one queries and renders the list after flushing the page header. Besides the JMH score
+ * (whole response), each trial prints the time to first byte and the process CPU per page. Client
+ * and server share the process, so the CPU includes the client's share; compare the two settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TaskPageBenchmark {
+
+    private static final int TASKS = 10_000;
+
+    @Param({"hit", "miss"})
+    private String cache;
+
+    private ConfigurableApplicationContext application;
+    private TaskDataVersion dataVersion;
+    private HttpClient client;
+    private HttpRequest page;
+    private final long[] firstByteNanos = new long[1 << 16];
+    private int pages;
+    private long cpuAtStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = SpringApplication.run(TaskManagerApplication.class,
+                "--server.port=0", "--tasks.admission.enabled=false", "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        TaskService taskService = application.getBean(TaskService.class);
+        for (int from = 0; from < TASKS; from += 1000) {
+            taskService.addTasks(IntStream.range(from, from + 1000).mapToObj(i -> "Task " + i).toList());
+        }
+        dataVersion = application.getBean(TaskDataVersion.class);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        page = HttpRequest.newBuilder(URI.create("http://localhost:"
+                + application.getEnvironment().getProperty("local.server.port") + "/")).build();
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        pages = 0;
+        cpuAtStart = processCpuNanos();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long[] sorted = Arrays.copyOf(firstByteNanos, Math.min(pages, firstByteNanos.length));
+        Arrays.sort(sorted);
+        if (sorted.length > 0) {
+            System.out.printf("%n    first byte p50 %.1f us, p99 %.1f us; CPU %.1f us per page (%d pages)%n",
+                    sorted[sorted.length / 2] / 1e3, sorted[(int) (sorted.length * 0.99)] / 1e3,
+                    (processCpuNanos() - cpuAtStart) / 1e3 / pages, pages);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        application.close();
+    }
+
+    @Benchmark
+    public int page() throws IOException, InterruptedException {
+        if (cache.equals("miss")) {
+            dataVersion.onTaskEvent(TaskEvent.reset());
+        }
+        long started = System.nanoTime();
+        HttpResponse<InputStream> response = client.send(page, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            int first = body.read();
+            if (pages < firstByteNanos.length) {
+                firstByteNanos[pages] = System.nanoTime() - started;
+            }
+            pages++;
+            return first + body.readAllBytes().length;
+        }
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+}
@@ -0,0 +1,62 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private TaskRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase("repository_" + rows, rows);
+        repository = new JdbcTaskRepository(database.jdbcTemplate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Task> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<Task> findTopN() {
+        return repository.findTopN(50);
+    }
+
+    @Benchmark
+    public Task findById() {
+        return repository.findById(ThreadLocalRandom.current().nextLong(1, rows + 1));
+    }
+
+    @Benchmark
+    public List<Task> findOpenAfter() {
+        return repository.findOpenAfter(ThreadLocalRandom.current().nextLong(rows), 50);
+    }
+
+    // Grows the table by one row per invocation; the seeded size dominates for short runs
+    @Benchmark
+    public Task addTask() {
+        return repository.addTask("Benchmark task");
+    }
+}
@@ -0,0 +1,68 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.service.TaskEvent;
+import com.createfuture.training.taskmanager.service.TaskSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title search over an index of {@code rows} four-word titles drawn from a 10k-word vocabulary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class TaskSearchIndexBenchmark {
+
+    private static final int VOCABULARY_SIZE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private String[] vocabulary;
+    private TaskSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 5 + random.nextInt(4); word.length() < length; ) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+        }
+
+        // The repository is only used by rebuild(), which the benchmark never calls
+        index = new TaskSearchIndex(null);
+        for (long id = 1; id <= rows; id++) {
+            String title = String.join(" ", word(random), word(random), word(random), word(random));
+            index.onTaskEvent(TaskEvent.created(new Task(id, title)));
+        }
+    }
+
+    private String word(Random random) {
+        return vocabulary[random.nextInt(VOCABULARY_SIZE)];
+    }
+
+    @Benchmark
+    public List<Task> searchTwoTerms() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.search(vocabulary[random.nextInt(VOCABULARY_SIZE)] + " "
+                + vocabulary[random.nextInt(VOCABULARY_SIZE)], 0, 20);
+    }
+
+    @Benchmark
+    public List<Task> searchPrefix() {
+        String word = vocabulary[ThreadLocalRandom.current().nextInt(VOCABULARY_SIZE)];
+        return index.search(word.substring(0, 3), 0, 20);
+    }
+}
@@ -0,0 +1,51 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Jackson serialization of the {@code List<Task>} and {@link TaskColumns} bodies returned by
+ * {@code TaskRestController}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskSerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Task> tasks;
+    private TaskColumns columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = LongStream.rangeClosed(1, rows)
+                .mapToObj(id -> new Task(id, "Task " + id, id % 10 != 0))
+                .toList();
+        TaskColumns.Builder builder = TaskColumns.builder(rows);
+        tasks.forEach(builder::add);
+        columns = builder.build();
+    }
+
+    @Benchmark
+    public byte[] serializeTaskList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskColumns() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(columns);
+    }
+}
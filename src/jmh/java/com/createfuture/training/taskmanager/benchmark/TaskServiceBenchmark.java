@@ -0,0 +1,59 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.createfuture.training.taskmanager.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the service-level open-task listing against the old approach of loading
+ * every row and filtering the done ones out with a stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private TaskRepository repository;
+    private TaskService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase("service_" + rows, rows);
+        repository = new JdbcTaskRepository(database.jdbcTemplate());
+        service = new TaskService(repository);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Task> getAllTasks() {
+        return service.getAllTasks();
+    }
+
+    @Benchmark
+    public List<Task> findAllThenStreamFilter() {
+        return repository.findAll().stream()
+                .filter(task -> !task.isDone())
+                .toList();
+    }
+
+    @Benchmark
+    public List<Task> getOpenTasksPage() {
+        return service.getOpenTasks(null, 100);
+    }
+}
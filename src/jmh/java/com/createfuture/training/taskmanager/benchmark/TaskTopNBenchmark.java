@@ -0,0 +1,80 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.InMemoryTaskRepository;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked top-N of open tasks: the JDBC engine walking idx_tasks_tenant_rank, the same ranking
+ * without the index prefix so H2 has to sort every open row, and the in-memory engine's skip list.
+ * The indexed and in-memory costs should follow {@code n}, the sorted one {@code rows}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskTopNBenchmark {
+
+    private static final String SORTED_SQL = "SELECT * FROM tasks WHERE tenant = ? AND done = false "
+            + "ORDER BY priority DESC, due_date NULLS LAST, id LIMIT ?";
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"10", "100"})
+    private int n;
+
+    private BenchmarkDatabase database;
+    private TaskRepository jdbc;
+    private TaskRepository inMemory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase("top_n_" + rows, rows);
+        // Otherwise H2 answers a repeated query from its cached result
+        database.jdbcTemplate().execute("SET OPTIMIZE_REUSE_RESULTS 0");
+        jdbc = new JdbcTaskRepository(database.jdbcTemplate());
+        inMemory = new InMemoryTaskRepository();
+        for (long x = 1; x <= rows; x++) {
+            // Same distribution as BenchmarkDatabase
+            LocalDate dueDate = x % 3 == 0 ? null : LocalDate.of(2026, 1, 1).plusDays(x * 13 % 365);
+            Task task = inMemory.addTask(new Task(null, "Task " + x, false, (int) (x * 7 % 5), dueDate));
+            if (x % 10 != 0) {
+                inMemory.markDoneById(task.getId());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Task> indexed() {
+        return jdbc.findTopN(n);
+    }
+
+    @Benchmark
+    public List<Task> sorted() {
+        JdbcTemplate jdbcTemplate = database.jdbcTemplate();
+        return jdbcTemplate.query(SORTED_SQL, (rs, row) -> new Task(rs.getLong("id"), rs.getString("title"),
+                rs.getBoolean("done"), rs.getInt("priority"), rs.getObject("due_date", LocalDate.class)),
+                TenantContext.DEFAULT_TENANT, n);
+    }
+
+    @Benchmark
+    public List<Task> inMemory() {
+        return inMemory.findTopN(n);
+    }
+}
@@ -0,0 +1,136 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Four writers updating the same {@code hotRows} tasks through a connection pool.
+ * {@code rowLock} is the pessimistic fix: lock the row with {@code SELECT ... FOR UPDATE}, then
+ * write, in one transaction. {@code readThenCas} is the unconditional PUT: read the version, write
+ * only if it still holds, retry otherwise. {@code ifMatch} is a client that already holds the
+ * version from its last response, so a write is one statement and only a conflict costs a read.
+ * {@code readThenWrite} is the old blind write, which loses updates. Teardown prints conflicts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(4)
+@Fork(1)
+public class TaskUpdateContentionBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final String LOCK_SQL = "SELECT version FROM tasks WHERE id = ? AND tenant = 'default' FOR UPDATE";
+    private static final String WRITE_SQL = "UPDATE tasks SET title = ?, version = version + 1 WHERE id = ? AND tenant = 'default'";
+
+    @Param({"1", "16"})
+    private int hotRows;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTaskRepository repository;
+    private final LongAdder conflicts = new LongAdder();
+
+    @State(Scope.Thread)
+    public static class Client {
+        // The version each task had in this client's last response, as an If-Match header would carry it
+        long[] versions;
+
+        @Setup(Level.Trial)
+        public void setUp(TaskUpdateContentionBenchmark benchmark) {
+            versions = new long[benchmark.hotRows + 1];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:contention_" + hotRows + ";LAZY_QUERY_EXECUTION=1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(POOL_SIZE);
+        dataSource = new HikariDataSource(config);
+        new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO tasks (done, title) SELECT false, CONCAT('Task ', X) FROM SYSTEM_RANGE(1, ?)", hotRows);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        repository = new JdbcTaskRepository(jdbcTemplate);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetConflicts() {
+        conflicts.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printConflicts() {
+        System.out.printf("%n    conflicts: %d%n", conflicts.sum());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    private long hotId() {
+        return 1 + ThreadLocalRandom.current().nextInt(hotRows);
+    }
+
+    @Benchmark
+    public int rowLock() {
+        long id = hotId();
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject(LOCK_SQL, Long.class, id);
+            return jdbcTemplate.update(WRITE_SQL, "Locked", id);
+        });
+    }
+
+    @Benchmark
+    public Task readThenCas() {
+        long id = hotId();
+        Task changes = new Task("Optimistic");
+        while (true) {
+            Task updated = repository.updateTaskIfVersion(id, changes, repository.findById(id).getVersion());
+            if (updated != null) {
+                return updated;
+            }
+            conflicts.increment();
+        }
+    }
+
+    @Benchmark
+    public Task ifMatch(Client client) {
+        int id = (int) hotId();
+        Task changes = new Task("Conditional");
+        while (true) {
+            Task updated = repository.updateTaskIfVersion((long) id, changes, client.versions[id]);
+            if (updated != null) {
+                client.versions[id] = updated.getVersion();
+                return updated;
+            }
+            // 412: the client fetches the task again and retries with the fresh ETag
+            conflicts.increment();
+            client.versions[id] = repository.findById((long) id).getVersion();
+        }
+    }
+
+    @Benchmark
+    public int readThenWrite() {
+        long id = hotId();
+        Task existing = repository.findById(id);
+        return repository.updateTask(new Task(id, "Blind", existing.isDone(), existing.getPriority(), existing.getDueDate()));
+    }
+}
@@ -0,0 +1,108 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.createfuture.training.taskmanager.tenant.TaskShards;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import com.createfuture.training.taskmanager.tenant.TenantRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One noisy tenant runs full exports on more threads than a shard has connections, while a quiet
+ * tenant reads one page. With {@code shared} both tenants live on one shard and the quiet reads
+ * queue for the noisy tenant's connections; with {@code sharded} the quiet tenant has its own
+ * shard and pool. {@code quietAlone} is the same read with nobody else running.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TenantIsolationBenchmark {
+
+    private static final int NOISY_ROWS = 200_000;
+    private static final int QUIET_ROWS = 10_000;
+    private static final int POOL_SIZE = 2;
+
+    @Param({"shared", "sharded"})
+    private String layout;
+
+    private TaskShards shards;
+    private JdbcTaskRepository repository;
+    private String noisyTenant;
+    private String quietTenant;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int shardCount = layout.equals("sharded") ? 2 : 1;
+        List<DataSource> dataSources = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl("jdbc:h2:mem:isolation_" + layout + "_" + shard + ";LAZY_QUERY_EXECUTION=1");
+            config.setUsername("sa");
+            config.setMaximumPoolSize(POOL_SIZE);
+            HikariDataSource dataSource = new HikariDataSource(config);
+            new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+            dataSources.add(dataSource);
+        }
+        shards = new TaskShards(dataSources, Executors.newFixedThreadPool(shardCount));
+        noisyTenant = tenantOn("noisy-", 0);
+        quietTenant = tenantOn("quiet-", shardCount - 1);
+        seed(noisyTenant, NOISY_ROWS);
+        seed(quietTenant, QUIET_ROWS);
+        repository = new JdbcTaskRepository(new JdbcTemplate(new TenantRoutingDataSource(shards)));
+    }
+
+    private String tenantOn(String prefix, int shard) {
+        int n = 0;
+        while (shards.shardOf(prefix + n) != shard) {
+            n++;
+        }
+        return prefix + n;
+    }
+
+    private void seed(String tenant, int rows) {
+        new JdbcTemplate(shards.dataSource(shards.shardOf(tenant))).update(
+                "INSERT INTO tasks (done, title, tenant) SELECT MOD(X, 10) <> 0, CONCAT('Task ', X), ? "
+                        + "FROM SYSTEM_RANGE(1, ?)", tenant, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        shards.close();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public long noisyExport() {
+        LongAdder rows = new LongAdder();
+        TenantContext.run(noisyTenant, () -> repository.forEach(null, task -> rows.increment()));
+        return rows.sum();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public List<Task> quietPage() {
+        return TenantContext.call(quietTenant, () -> repository.findOpenAfter(0, 100));
+    }
+
+    @Benchmark
+    public List<Task> quietAlone() {
+        return TenantContext.call(quietTenant, () -> repository.findOpenAfter(0, 100));
+    }
+}
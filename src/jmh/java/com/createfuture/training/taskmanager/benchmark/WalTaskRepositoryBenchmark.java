@@ -0,0 +1,150 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.WalTaskRepository;
+import com.createfuture.training.taskmanager.repository.WalTaskRepository.FsyncPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write throughput and recovery time of the write-ahead log engine at ten million mutations:
+ * one million adds followed by an even mix of markDone, update, delete-oldest and add, which keeps
+ * about a million live tasks.
+ * Group commit is measured separately, because an fsync per single-threaded write would take hours.
+ */
+public class WalTaskRepositoryBenchmark {
+
+    static final int TASKS = 1_000_000;
+    static final int MUTATIONS = 10_000_000;
+
+    @State(Scope.Thread)
+    public static class Write {
+
+        @Param({"NEVER", "INTERVAL"})
+        FsyncPolicy fsync;
+
+        Path directory;
+        WalTaskRepository repository;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("task-wal-write");
+            repository = open(directory, fsync);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            repository.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recover {
+
+        @Param({"false", "true"})
+        boolean snapshot;
+
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("task-wal-recover");
+            try (WalTaskRepository repository = open(directory, FsyncPolicy.NEVER)) {
+                applyMutations(repository);
+                if (snapshot) {
+                    repository.snapshot();
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class GroupCommit {
+
+        Path directory;
+        WalTaskRepository repository;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("task-wal-group-commit");
+            repository = open(directory, FsyncPolicy.ALWAYS);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            repository.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+    public long write10M(Write state) {
+        return applyMutations(state.repository);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+    public int recover10M(Recover state) {
+        try (WalTaskRepository repository = open(state.directory, FsyncPolicy.NEVER)) {
+            return repository.findTopN(1).size();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    @Fork(1)
+    @Threads(16)
+    public Task addTaskGroupCommit(GroupCommit state) {
+        return state.repository.addTask("Benchmark task");
+    }
+
+    static WalTaskRepository open(Path directory, FsyncPolicy fsync) {
+        return new WalTaskRepository(directory, DataSize.ofMegabytes(64), fsync,
+                Duration.ofMillis(100), Duration.ZERO, Thread.ofPlatform());
+    }
+
+    // Every mutation hits a live task, so each one produces exactly one log record
+    static long applyMutations(WalTaskRepository repository) {
+        long checksum = 0;
+        long oldestId = 1;
+        long newestId = 0;
+        for (int i = 0; i < TASKS; i++) {
+            newestId = repository.addTask("Task " + i).getId();
+        }
+        for (int i = TASKS; i < MUTATIONS; i++) {
+            long id = oldestId + (i * 2_654_435_761L & Long.MAX_VALUE) % (newestId - oldestId + 1);
+            checksum += switch (i % 4) {
+                case 0 -> repository.markDoneById(id);
+                case 1 -> repository.updateTask(new Task(id, "Renamed " + i, false));
+                case 2 -> repository.deleteById(oldestId++);
+                default -> newestId = repository.addTask("Task " + i).getId();
+            };
+        }
+        return checksum;
+    }
+}
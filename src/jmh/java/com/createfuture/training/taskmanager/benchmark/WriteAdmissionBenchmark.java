@@ -0,0 +1,105 @@
+package com.createfuture.training.taskmanager.benchmark;
+
+import com.createfuture.training.taskmanager.admission.AdaptiveConcurrencyLimiter;
+import com.createfuture.training.taskmanager.admission.ClientRateLimiter;
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Read latency under a write flood. One thread pages through open tasks while seven write as fast
+ * as they can, all sharing a pool of four connections like a small deployment. With admission on,
+ * each write goes through the same checks as {@code WriteAdmissionFilter}. A refused writer waits a
+ * millisecond, standing in for the round trip of its 429. Compare the read percentiles, and the
+ * write rate, between the two settings.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class WriteAdmissionBenchmark {
+
+    private static final long REFUSED_ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"off", "on"})
+    private String admission;
+
+    private BenchmarkDatabase database;
+    private HikariDataSource pool;
+    private TaskRepository repository;
+    private ClientRateLimiter rateLimiter;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private static final AtomicInteger WRITERS = new AtomicInteger();
+
+        String client;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            client = "writer-" + WRITERS.incrementAndGet();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase("admission", 100_000);
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:admission");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(4);
+        pool = new HikariDataSource(config);
+        repository = new JdbcTaskRepository(new JdbcTemplate(pool));
+        // A rate that leaves the shedding to the concurrency limit, and a target scaled down from the
+        // application's 50ms to an in-memory database whose uncontended writes take ~10us
+        rateLimiter = new ClientRateLimiter(10_000, 1_000, 100_000);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(20, 2, 200, Duration.ofMillis(2));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+        database.close();
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(1)
+    public List<Task> read() {
+        return repository.findOpenAfter(ThreadLocalRandom.current().nextLong(100_000), 50);
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(7)
+    public Task write(Writer writer) {
+        if (admission.equals("off")) {
+            return repository.addTask("Flood");
+        }
+        if (rateLimiter.tryAcquire(writer.client) > 0 || !concurrencyLimiter.tryAcquire()) {
+            LockSupport.parkNanos(REFUSED_ROUND_TRIP_NANOS);
+            return null;
+        }
+        long started = System.nanoTime();
+        try {
+            return repository.addTask("Flood");
+        } finally {
+            long now = System.nanoTime();
+            concurrencyLimiter.release(now - started, now);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.createfuture.training.taskmanager.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Load test settings, read from {@code load.*} system properties (the Gradle task passes every
+ * {@code -Pload.*} project property through). {@code load.app.*} properties go to the application
+ * under test with the prefix stripped, e.g. {@code -Pload.app.tasks.storage=memory}.
+ */
+record LoadConfig(double rate, Duration warmup, Duration duration, int seedTasks, Map<Operation, Integer> mix,
+                  int maxInFlight, Duration timeout, String version, String reportDir, String baseline,
+                  Map<String, Object> appProperties) {
+
+    static final String DEFAULT_MIX = "page:35,top:10,get:25,create:15,done:10,delete:5";
+
+    static LoadConfig from(Properties properties) {
+        Map<String, Object> app = new LinkedHashMap<>();
+        // One client would otherwise be held to the per-client write rate limit
+        app.put("tasks.admission.enabled", "false");
+        properties.stringPropertyNames().stream()
+                .filter(name -> name.startsWith("load.app."))
+                .forEach(name -> app.put(name.substring("load.app.".length()), properties.getProperty(name)));
+        LoadConfig config = new LoadConfig(
+                Double.parseDouble(properties.getProperty("load.rate", "200")),
+                DurationStyle.detectAndParse(properties.getProperty("load.warmup", "10s")),
+                DurationStyle.detectAndParse(properties.getProperty("load.duration", "30s")),
+                Integer.parseInt(properties.getProperty("load.seed", "100000")),
+                parseMix(properties.getProperty("load.mix", DEFAULT_MIX)),
+                Integer.parseInt(properties.getProperty("load.max-in-flight", "2000")),
+                DurationStyle.detectAndParse(properties.getProperty("load.timeout", "10s")),
+                properties.getProperty("load.version", "unknown"),
+                properties.getProperty("load.report-dir", "build/reports/load"),
+                properties.getProperty("load.baseline"),
+                app);
+        if (config.rate <= 0 || config.duration.isZero() || config.duration.isNegative()) {
+            throw new IllegalArgumentException("load.rate and load.duration must be positive");
+        }
+        return config;
+    }
+
+    // "page:35,create:15" -> weights per operation; operations left out are not sent
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in load.mix, got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in load.mix: " + entry);
+            }
+            if (weight > 0) {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix selects no operation");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,166 @@
+package com.createfuture.training.taskmanager.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load: request {@code i} is due at {@code start + i / rate} and is sent then, whether or
+ * not earlier requests have answered, so a slow server faces a growing queue instead of a politely
+ * slowing client. Response time is measured from the due time, not from the moment the request
+ * was actually sent, which is the coordinated-omission correction: if the generator or the
+ * connection pool falls behind, the wait counts against the server like it would for a real user.
+ * Service time, from the actual send, is recorded alongside to show how much of the response
+ * time was queueing.
+ */
+final class LoadGenerator {
+
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Recorded only for requests due inside the measurement window
+    static final class Stats {
+        final Histogram responseTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder sent = new LongAdder();
+        final LongAdder ok = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        // Due while max-in-flight requests were outstanding, so never sent
+        final LongAdder shed = new LongAdder();
+    }
+
+    private final LoadConfig config;
+    private final URI base;
+    private final HttpClient client;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Operation[] weighted;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAccumulator highestId;
+    private final AtomicLong lateSends = new AtomicLong();
+
+    LoadGenerator(LoadConfig config, URI base, long highestSeededId) {
+        this.config = config;
+        this.base = base;
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.highestId = new LongAccumulator(Math::max, highestSeededId);
+        int total = config.mix().values().stream().mapToInt(Integer::intValue).sum();
+        this.weighted = new Operation[total];
+        int slot = 0;
+        for (Map.Entry<Operation, Integer> entry : config.mix().entrySet()) {
+            stats.put(entry.getKey(), new Stats());
+            for (int i = 0; i < entry.getValue(); i++) {
+                weighted[slot++] = entry.getKey();
+            }
+        }
+    }
+
+    /**
+     * Runs the warm-up and measurement phases, waits for outstanding responses and returns the
+     * statistics of the measured phase.
+     */
+    Map<Operation, Stats> run() {
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+        double periodNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * periodNanos);
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (wait < -TimeUnit.MILLISECONDS.toNanos(1)) {
+                lateSends.incrementAndGet();
+            }
+            send(weighted[ThreadLocalRandom.current().nextInt(weighted.length)], due, due >= measureFrom);
+        }
+        awaitOutstanding();
+        return stats;
+    }
+
+    // Sends that left more than a millisecond after their due time; their lateness is in the response times
+    long lateSends() {
+        return lateSends.get();
+    }
+
+    private void send(Operation operation, long due, boolean measured) {
+        Stats operationStats = stats.get(operation);
+        if (inFlight.incrementAndGet() > config.maxInFlight()) {
+            inFlight.decrementAndGet();
+            if (measured) {
+                operationStats.shed.increment();
+            }
+            return;
+        }
+        long sent = System.nanoTime();
+        if (measured) {
+            operationStats.sent.increment();
+        }
+        HttpResponse.BodyHandler<String> body = operation == Operation.CREATE
+                ? HttpResponse.BodyHandlers.ofString()
+                : HttpResponse.BodyHandlers.replacing(null);
+        client.sendAsync(operation.request(base, highestId.get(), config.timeout()), body)
+                .whenComplete((response, failure) -> {
+                    long completed = System.nanoTime();
+                    inFlight.decrementAndGet();
+                    if (response != null && operation == Operation.CREATE && response.statusCode() == 201) {
+                        rememberCreatedId(response.body());
+                    }
+                    if (!measured) {
+                        return;
+                    }
+                    operationStats.responseTime.recordValue(micros(completed - due));
+                    operationStats.serviceTime.recordValue(micros(completed - sent));
+                    if (response == null) {
+                        operationStats.errors.increment();
+                    } else if (response.statusCode() < 300) {
+                        operationStats.ok.increment();
+                    } else if (operation.isExpectedMiss(response.statusCode())) {
+                        operationStats.misses.increment();
+                    } else {
+                        operationStats.errors.increment();
+                    }
+                });
+    }
+
+    private void rememberCreatedId(String body) {
+        try {
+            JsonNode id = JSON.readTree(body).get("id");
+            if (id != null) {
+                highestId.accumulate(id.asLong());
+            }
+        } catch (IOException e) {
+            // Only used to widen the id range; the response itself is still counted
+        }
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS);
+    }
+
+    // Every request has a timeout, so this ends; the margin covers responses racing the deadline
+    private void awaitOutstanding() {
+        long deadline = System.nanoTime() + config.timeout().toNanos() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.createfuture.training.taskmanager.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput and latency percentiles of one run, printed as a table and saved as
+ * {@code load-<version>-<time>.json} (the form to compare between releases) plus the full
+ * response-time distribution in HdrHistogram's {@code .hgrm} format for plotting. With
+ * {@code load.baseline} set, the run is also compared against an earlier report.
+ */
+final class LoadReport {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String ALL = "all";
+
+    private final LoadConfig config;
+    private final Map<String, Row> rows = new LinkedHashMap<>();
+    private final Histogram allResponseTimes = new Histogram(LoadGenerator.HIGHEST_TRACKABLE_MICROS, 3);
+    private final long lateSends;
+
+    private record Row(long sent, long ok, long misses, long errors, long shed, Histogram responseTime,
+                       Histogram serviceTime) {
+    }
+
+    LoadReport(LoadConfig config, Map<Operation, LoadGenerator.Stats> stats, long lateSends) {
+        this.config = config;
+        this.lateSends = lateSends;
+        Histogram allServiceTimes = new Histogram(LoadGenerator.HIGHEST_TRACKABLE_MICROS, 3);
+        long[] totals = new long[5];
+        stats.forEach((operation, s) -> {
+            Row row = new Row(s.sent.sum(), s.ok.sum(), s.misses.sum(), s.errors.sum(), s.shed.sum(),
+                    s.responseTime.copy(), s.serviceTime.copy());
+            rows.put(operation.label(), row);
+            allResponseTimes.add(row.responseTime());
+            allServiceTimes.add(row.serviceTime());
+            totals[0] += row.sent();
+            totals[1] += row.ok();
+            totals[2] += row.misses();
+            totals[3] += row.errors();
+            totals[4] += row.shed();
+        });
+        rows.put(ALL, new Row(totals[0], totals[1], totals[2], totals[3], totals[4], allResponseTimes, allServiceTimes));
+    }
+
+    private double throughput(Row row) {
+        return (row.ok() + row.misses()) / (config.duration().toMillis() / 1000.0);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%nTask Manager %s: %.0f req/s offered for %ds after %ds warm-up, %d seeded tasks, mix %s%n",
+                config.version(), config.rate(), config.duration().toSeconds(), config.warmup().toSeconds(),
+                config.seedTasks(), mixOf(config));
+        if (lateSends > 0) {
+            out.printf("%d requests left more than 1 ms after their due time; the generator could not keep up%n", lateSends);
+        }
+        out.printf("%nResponse time, from when each request was due (coordinated-omission corrected)%n");
+        printHeader(out);
+        rows.forEach((name, row) -> printRow(out, name, row, row.responseTime()));
+        out.printf("%nService time, from when each request was sent%n");
+        printHeader(out);
+        rows.forEach((name, row) -> printRow(out, name, row, row.serviceTime()));
+    }
+
+    private static void printHeader(PrintStream out) {
+        out.printf("%-8s %9s %9s %7s %7s %7s | %9s %9s %9s %9s %9s%n", "", "sent", "done/s", "404", "errors",
+                "shed", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    private void printRow(PrintStream out, String name, Row row, Histogram latency) {
+        out.printf("%-8s %9d %9.1f %7d %7d %7d | %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, row.sent(), throughput(row),
+                row.misses(), row.errors(), row.shed(),
+                millis(latency, 50), millis(latency, 90), millis(latency, 99), millis(latency, 99.9),
+                latency.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Writes the JSON report, the text table and the response-time distribution, and returns the
+     * path of the JSON report.
+     */
+    Path write() {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path directory = Path.of(config.reportDir());
+        String name = "load-" + config.version() + "-" + stamp;
+        try {
+            Files.createDirectories(directory);
+            Path json = directory.resolve(name + ".json");
+            JSON.writerWithDefaultPrettyPrinter().writeValue(json.toFile(), toJson());
+            try (PrintStream text = new PrintStream(Files.newOutputStream(directory.resolve(name + ".txt")))) {
+                print(text);
+            }
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+                allResponseTimes.outputPercentileDistribution(hgrm, 1000.0);
+            }
+            return json;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the load report to " + directory, e);
+        }
+    }
+
+    private ObjectNode toJson() {
+        ObjectNode report = JSON.createObjectNode();
+        report.put("version", config.version());
+        report.put("timestamp", LocalDateTime.now().toString());
+        ObjectNode settings = report.putObject("config");
+        settings.put("rate", config.rate());
+        settings.put("warmupSeconds", config.warmup().toSeconds());
+        settings.put("durationSeconds", config.duration().toSeconds());
+        settings.put("seedTasks", config.seedTasks());
+        settings.put("mix", mixOf(config));
+        settings.put("maxInFlight", config.maxInFlight());
+        ObjectNode app = settings.putObject("app");
+        config.appProperties().forEach((key, value) -> app.put(key, String.valueOf(value)));
+        report.put("lateSends", lateSends);
+        ObjectNode operations = report.putObject("operations");
+        rows.forEach((name, row) -> {
+            ObjectNode node = operations.putObject(name);
+            node.put("sent", row.sent());
+            node.put("throughputPerSecond", throughput(row));
+            node.put("notFound", row.misses());
+            node.put("errors", row.errors());
+            node.put("shed", row.shed());
+            latencyJson(node.putObject("responseTimeMs"), row.responseTime());
+            latencyJson(node.putObject("serviceTimeMs"), row.serviceTime());
+        });
+        return report;
+    }
+
+    private static void latencyJson(ObjectNode node, Histogram histogram) {
+        for (double percentile : PERCENTILES) {
+            node.put("p" + (percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile)),
+                    millis(histogram, percentile));
+        }
+        node.put("max", histogram.getMaxValue() / 1000.0);
+        node.put("mean", histogram.getMean() / 1000.0);
+    }
+
+    /**
+     * Prints throughput and response-time percentiles next to an earlier report, with the change
+     * in percent. Only operations present in both runs are compared.
+     */
+    void compare(Path baselineFile, PrintStream out) {
+        JsonNode baseline;
+        try {
+            baseline = JSON.readTree(baselineFile.toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read baseline " + baselineFile, e);
+        }
+        JsonNode current = toJson();
+        out.printf("%nCompared with %s (%s):%n", baseline.path("version").asText("?"), baselineFile);
+        out.printf("%-8s %20s %20s %20s %20s%n", "", "done/s", "p50 ms", "p99 ms", "p99.9 ms");
+        Iterator<Map.Entry<String, JsonNode>> operations = current.path("operations").fields();
+        while (operations.hasNext()) {
+            Map.Entry<String, JsonNode> operation = operations.next();
+            JsonNode before = baseline.path("operations").path(operation.getKey());
+            if (before.isMissingNode()) {
+                continue;
+            }
+            JsonNode after = operation.getValue();
+            out.printf("%-8s %20s %20s %20s %20s%n", operation.getKey(),
+                    change(before.path("throughputPerSecond"), after.path("throughputPerSecond")),
+                    change(before.path("responseTimeMs").path("p50"), after.path("responseTimeMs").path("p50")),
+                    change(before.path("responseTimeMs").path("p99"), after.path("responseTimeMs").path("p99")),
+                    change(before.path("responseTimeMs").path("p99.9"), after.path("responseTimeMs").path("p99.9")));
+        }
+    }
+
+    private static String change(JsonNode before, JsonNode after) {
+        double was = before.asDouble();
+        double now = after.asDouble();
+        String delta = was == 0 ? "" : String.format(" (%+.0f%%)", (now - was) / was * 100);
+        return String.format("%.1f -> %.1f%s", was, now, delta);
+    }
+
+    private static String mixOf(LoadConfig config) {
+        return config.mix().entrySet().stream()
+                .map(entry -> entry.getKey().label() + ":" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,59 @@
+package com.createfuture.training.taskmanager.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One kind of request in the load mix. Requests that name a task pick a random id up to the
+ * highest one seen, so some of them hit tasks that were deleted: those 404s are expected and
+ * reported apart from errors.
+ */
+enum Operation {
+
+    // GET /api/tasks: the whole open list
+    LIST,
+    // GET /api/tasks?afterId=...&limit=100
+    PAGE,
+    // GET /api/tasks/top?n=10
+    TOP,
+    // GET /api/tasks/{id}
+    GET,
+    // POST /api/tasks
+    CREATE,
+    // PATCH /api/tasks/{id}/done
+    DONE,
+    // DELETE /api/tasks/{id}
+    DELETE;
+
+    HttpRequest request(URI base, long highestId, Duration timeout) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = 1 + random.nextLong(Math.max(1, highestId));
+        HttpRequest.Builder request = switch (this) {
+            case LIST -> HttpRequest.newBuilder(base.resolve("/api/tasks")).GET();
+            case PAGE -> HttpRequest.newBuilder(base.resolve("/api/tasks?afterId=" + random.nextLong(Math.max(1, highestId))
+                    + "&limit=100")).GET();
+            case TOP -> HttpRequest.newBuilder(base.resolve("/api/tasks/top?n=10")).GET();
+            case GET -> HttpRequest.newBuilder(base.resolve("/api/tasks/" + id)).GET();
+            case CREATE -> HttpRequest.newBuilder(base.resolve("/api/tasks"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Load test task\",\"priority\":"
+                            + random.nextInt(5) + "}"));
+            case DONE -> HttpRequest.newBuilder(base.resolve("/api/tasks/" + id + "/done"))
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody());
+            case DELETE -> HttpRequest.newBuilder(base.resolve("/api/tasks/" + id)).DELETE();
+        };
+        return request.timeout(timeout).build();
+    }
+
+    // A task that is already gone is a normal outcome for requests that pick a random id
+    boolean isExpectedMiss(int status) {
+        return status == 404 && (this == GET || this == DONE || this == DELETE);
+    }
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,97 @@
+package com.createfuture.training.taskmanager.load;
+
+import com.createfuture.training.taskmanager.TaskManagerApplication;
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application on a random port against its in-memory H2 database, seeds it, drives the
+ * configured request mix at a fixed arrival rate and reports throughput and latency percentiles.
+ * Generator and server share the JVM and its CPUs, so on a small machine the generator's own cost
+ * shows up in the results; compare runs made on the same hardware.
+ * <p>
+ * {@code ./gradlew loadTest -Pload.rate=500 -Pload.duration=60s}
+ */
+public final class TaskLoadTest {
+
+    private static final int SEED_CHUNK = 1000;
+
+    private TaskLoadTest() {
+    }
+
+    public static void main(String[] args) {
+        LoadConfig config = LoadConfig.from(System.getProperties());
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(config.appProperties());
+        // As command-line arguments, so they win over application.properties; default properties would not
+        List<String> arguments = new ArrayList<>(List.of(args));
+        properties.forEach((name, value) -> arguments.add("--" + name + "=" + value));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TaskManagerApplication.class)
+                .run(arguments.toArray(String[]::new))) {
+            long started = System.nanoTime();
+            long highestId = "jdbc".equals(context.getEnvironment().getProperty("tasks.storage", "jdbc"))
+                    ? seed(context.getBean(JdbcTemplate.class), config.seedTasks())
+                    : seed(context.getBean(TaskRepository.class), config.seedTasks());
+            System.out.printf("Seeded %d tasks in %d ms%n", config.seedTasks(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            LoadGenerator generator = new LoadGenerator(config, URI.create("http://localhost:" + port), highestId);
+            Map<Operation, LoadGenerator.Stats> stats = generator.run();
+
+            LoadReport report = new LoadReport(config, stats, generator.lateSends());
+            report.print(System.out);
+            System.out.println("\nReport written to " + report.write());
+            if (config.baseline() != null) {
+                report.compare(Path.of(config.baseline()), System.out);
+            }
+        }
+    }
+
+    // Nine in ten seeded tasks are done, like production, with spread priorities and due dates so the
+    // top-N ranking has work to do. One set-based insert: marking fresh rows done one by one costs
+    // H2 milliseconds per row through the (tenant, done, ...) indexes, minutes for a large seed.
+    private static long seed(JdbcTemplate jdbcTemplate, int tasks) {
+        jdbcTemplate.update("INSERT INTO tasks (done, title, priority, due_date, done_at) "
+                + "SELECT MOD(X, 10) <> 0, CONCAT('Task ', X), MOD(X * 7, 5), "
+                + "CASE WHEN MOD(X, 3) = 0 THEN NULL ELSE DATEADD(DAY, MOD(X * 13, 365), CURRENT_DATE) END, "
+                + "CASE WHEN MOD(X, 10) <> 0 THEN CURRENT_TIMESTAMP END "
+                + "FROM SYSTEM_RANGE(1, ?)", tasks);
+        Long highestId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tasks", Long.class);
+        return highestId == null ? 0 : highestId;
+    }
+
+    // The other engines have no SQL, so they are seeded through the repository
+    private static long seed(TaskRepository repository, int tasks) {
+        long highestId = 0;
+        for (int from = 0; from < tasks; from += SEED_CHUNK) {
+            List<String> titles = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(from + SEED_CHUNK, tasks); i++) {
+                titles.add("Task " + i);
+            }
+            List<Long> done = new ArrayList<>(titles.size());
+            for (Task task : repository.addTasks(titles)) {
+                highestId = Math.max(highestId, task.getId());
+                if (task.getId() % 10 != 0) {
+                    done.add(task.getId());
+                }
+            }
+            repository.markDoneByIds(done);
+        }
+        return highestId;
+    }
+}
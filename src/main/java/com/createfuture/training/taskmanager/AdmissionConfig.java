@@ -0,0 +1,46 @@
+package com.createfuture.training.taskmanager;
+
+import com.createfuture.training.taskmanager.admission.AdaptiveConcurrencyLimiter;
+import com.createfuture.training.taskmanager.admission.ClientRateLimiter;
+import com.createfuture.training.taskmanager.admission.WriteAdmissionFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Puts a {@link WriteAdmissionFilter} in front of every endpoint that changes tasks: the REST API
+ * and the Thymeleaf form posts. It runs right after the tenant filter.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tasks.admission.enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<WriteAdmissionFilter> writeAdmissionFilter(
+            MeterRegistry registry,
+            @Value("${tasks.admission.client-header:X-Client-Id}") String clientHeader,
+            @Value("${tasks.admission.trusted-proxies:}") Set<String> trustedProxies,
+            @Value("${tasks.admission.rate-limit.per-second:50}") double perSecond,
+            @Value("${tasks.admission.rate-limit.burst:100}") int burst,
+            @Value("${tasks.admission.rate-limit.max-clients:100000}") long maxClients,
+            @Value("${tasks.admission.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${tasks.admission.concurrency.min-limit:2}") int minLimit,
+            @Value("${tasks.admission.concurrency.max-limit:200}") int maxLimit,
+            @Value("${tasks.admission.concurrency.target-latency:50ms}") Duration targetLatency) {
+        WriteAdmissionFilter filter = new WriteAdmissionFilter(
+                new ClientRateLimiter(perSecond, burst, maxClients),
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, targetLatency),
+                clientHeader, trustedProxies, registry);
+        FilterRegistrationBean<WriteAdmissionFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/tasks", "/api/tasks/*", "/add", "/tasks/done");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
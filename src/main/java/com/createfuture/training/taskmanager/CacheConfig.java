@@ -0,0 +1,14 @@
+package com.createfuture.training.taskmanager;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String TASKS_CACHE = "tasks";
+
+    // Task ids repeat across shards, so cached tasks are keyed by tenant and id
+    public static final String TASK_KEY = "T(com.createfuture.training.taskmanager.tenant.TenantContext).cacheKey(#id)";
+    public static final String UPDATED_TASK_KEY = "T(com.createfuture.training.taskmanager.tenant.TenantContext).cacheKey(#task.id)";
+}
@@ -0,0 +1,83 @@
+package com.createfuture.training.taskmanager;
+
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+@Configuration
+public class MetricsConfig {
+
+    // @Timed on TaskService/TaskRepository; the channel tag separates the Thymeleaf UI from /api/tasks
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry, MetricsConfig::timerTags);
+    }
+
+    @Bean
+    public RowCountAspect rowCountAspect(MeterRegistry registry) {
+        return new RowCountAspect(registry);
+    }
+
+    static Iterable<Tag> timerTags(ProceedingJoinPoint joinPoint) {
+        return Tags.of(
+                "class", joinPoint.getStaticPart().getSignature().getDeclaringType().getSimpleName(),
+                "method", joinPoint.getStaticPart().getSignature().getName(),
+                "channel", currentChannel());
+    }
+
+    static String currentChannel() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return "none";
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        return request.getRequestURI().startsWith("/api/") ? "api" : "web";
+    }
+
+    @Aspect
+    static class RowCountAspect {
+        private final MeterRegistry registry;
+
+        RowCountAspect(MeterRegistry registry) {
+            this.registry = registry;
+        }
+
+        @AfterReturning(
+                pointcut = "execution(java.util.List com.createfuture.training.taskmanager.repository.TaskRepository.find*(..))",
+                returning = "rows")
+        public void recordRows(JoinPoint joinPoint, List<?> rows) {
+            record(joinPoint, rows.size());
+        }
+
+        @AfterReturning(
+                pointcut = "execution(com.createfuture.training.taskmanager.model.TaskColumns com.createfuture.training.taskmanager.repository.TaskRepository.find*(..))",
+                returning = "columns")
+        public void recordColumns(JoinPoint joinPoint, TaskColumns columns) {
+            record(joinPoint, columns.size());
+        }
+
+        private void record(JoinPoint joinPoint, int rows) {
+            DistributionSummary.builder("tasks.repository.rows")
+                    .description("Rows returned by TaskRepository list queries")
+                    .tags("method", joinPoint.getSignature().getName(), "channel", currentChannel())
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(rows);
+        }
+    }
+}
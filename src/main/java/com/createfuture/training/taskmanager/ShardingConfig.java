@@ -0,0 +1,65 @@
+package com.createfuture.training.taskmanager;
+
+import com.createfuture.training.taskmanager.tenant.TaskShards;
+import com.createfuture.training.taskmanager.tenant.TenantRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Spreads tenants over the databases in {@code tasks.sharding.urls}, each with its own connection
+ * pool so a tenant saturating its shard cannot starve tenants on the others. Replaces the
+ * auto-configured DataSource with a {@link TenantRoutingDataSource}, and creates the schema on
+ * every shard since {@code spring.sql.init} would only reach the one the default tenant lives on.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tasks.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public TaskShards taskShards(Environment environment,
+                                 MeterRegistry registry,
+                                 @Value("${tasks.sharding.urls}") List<String> urls,
+                                 @Value("${tasks.sharding.pool-size:10}") int poolSize,
+                                 @Value("${spring.datasource.username:sa}") String username,
+                                 @Value("${spring.datasource.password:}") String password) {
+        List<DataSource> shards = new ArrayList<>(urls.size());
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("tasks-shard-" + shard);
+            config.setJdbcUrl(urls.get(shard));
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(poolSize);
+            config.setMetricRegistry(registry);
+            HikariDataSource dataSource = new HikariDataSource(config);
+            new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+            shards.add(dataSource);
+        }
+        ExecutorService fanOut = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(urls.size(), Thread.ofPlatform().name("task-shard-fan-out-", 0).daemon().factory());
+        return new TaskShards(shards, fanOut);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(TaskShards taskShards) {
+        return new TenantRoutingDataSource(taskShards);
+    }
+}
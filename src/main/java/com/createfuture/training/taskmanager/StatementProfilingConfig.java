@@ -0,0 +1,42 @@
+package com.createfuture.training.taskmanager;
+
+import com.createfuture.training.taskmanager.profiling.ProfilingDataSource;
+import com.createfuture.training.taskmanager.profiling.StatementProfiler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application's DataSource in a {@link ProfilingDataSource}, so every statement the
+ * repositories, the archiver and Hibernate run through it is timed. With sharding that is the
+ * routing DataSource, which covers all request traffic; the admin fan-out and the archiver go to
+ * the shard pools directly and are not profiled.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tasks.jdbc-profiling.enabled", havingValue = "true")
+public class StatementProfilingConfig {
+
+    @Bean
+    public StatementProfiler statementProfiler(@Value("${tasks.jdbc-profiling.slow-log-size:20}") int slowLogSize,
+                                               @Value("${tasks.jdbc-profiling.max-statements:1000}") int maxStatements) {
+        return new StatementProfiler(slowLogSize, maxStatements);
+    }
+
+    // Static so it is registered before the DataSource is created
+    @Bean
+    public static BeanPostProcessor profilingDataSourcePostProcessor(ObjectProvider<StatementProfiler> profiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)
+                        ? new ProfilingDataSource(dataSource, profiler.getObject())
+                        : bean;
+            }
+        };
+    }
+}
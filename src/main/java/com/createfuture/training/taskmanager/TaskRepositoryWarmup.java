@@ -0,0 +1,50 @@
+package com.createfuture.training.taskmanager;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the hot repository queries before the application reports ready. Runners finish before
+ * Spring Boot publishes the ACCEPTING_TRAFFIC readiness state, so JIT compilation, statement
+ * parsing and cache population happen before the first real request.
+ */
+@Component
+@ConditionalOnProperty(name = "tasks.warmup.enabled", havingValue = "true")
+public class TaskRepositoryWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskRepositoryWarmup.class);
+
+    private final TaskRepository taskRepository;
+    private final int iterations;
+
+    public TaskRepositoryWarmup(TaskRepository taskRepository,
+                                @Value("${tasks.warmup.iterations:200}") int iterations) {
+        this.taskRepository = taskRepository;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            List<Task> page = taskRepository.findOpenAfter(0L, 50);
+            taskRepository.findTopN(10);
+            taskRepository.findById(-1L);
+            for (Task task : page) {
+                taskRepository.findById(task.getId());
+            }
+        }
+        log.info("Repository warm-up ran {} iterations in {} ms", iterations,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,75 @@
+package com.createfuture.training.taskmanager.admission;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps how many writes run at once, and moves the cap with their latency (additive increase,
+ * multiplicative decrease). A write slower than the target means requests are queueing for
+ * connections or locks, so the limit drops by a quarter, at most once per target interval so one
+ * burst of slow writes cannot collapse it. A full limit's worth of fast writes that kept it at
+ * least half used raises it by one. Everything is atomics; nothing waits for a permit.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final AtomicInteger fastSinceIncrease = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(NEVER);
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration targetLatency) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits need 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = targetLatency.toNanos();
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit taken by {@link #tryAcquire()} and feeds the write's latency back into the limit.
+     */
+    public void release(long latencyNanos, long now) {
+        int wasInFlight = inFlight.getAndDecrement();
+        if (latencyNanos > targetNanos) {
+            long last = lastDecrease.get();
+            if ((last == NEVER || now - last >= targetNanos) && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(current -> Math.max(minLimit, current * 3 / 4));
+                fastSinceIncrease.set(0);
+            }
+            return;
+        }
+        int current = limit.get();
+        if (wasInFlight * 2 >= current && fastSinceIncrease.incrementAndGet() >= current) {
+            fastSinceIncrease.set(0);
+            limit.updateAndGet(value -> Math.min(maxLimit, value + 1));
+        }
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,65 @@
+package com.createfuture.training.taskmanager.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per client: {@code burst} requests at once, refilled at {@code perSecond}. Each
+ * bucket is a single {@link AtomicLong} holding the time at which it will be full again (the
+ * generic cell rate algorithm), so admitting a request is one compare-and-set with no lock. Idle
+ * buckets are evicted once there are more than {@code maxClients}, or after a minute unused; an
+ * evicted bucket was full anyway.
+ */
+public class ClientRateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public ClientRateLimiter(double perSecond, int burst, long maxClients) {
+        this(perSecond, burst, maxClients, System::nanoTime);
+    }
+
+    ClientRateLimiter(double perSecond, int burst, long maxClients, LongSupplier clock) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit needs a positive rate and burst");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .build();
+    }
+
+    /**
+     * Takes a token from the client's bucket. Returns 0 when the request may go ahead, otherwise
+     * how many nanoseconds until the bucket has a token again.
+     */
+    public long tryAcquire(String client) {
+        AtomicLong fullAt = buckets.get(client, key -> new AtomicLong(Long.MIN_VALUE));
+        long now = clock.getAsLong();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long clients() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,102 @@
+package com.createfuture.training.taskmanager.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits task writes: a request that changes data must first get a token from its client's
+ * {@link ClientRateLimiter} bucket, then a permit from the shared {@link AdaptiveConcurrencyLimiter}.
+ * Either refusal is a 429 with {@code Retry-After}, answered before the request touches the
+ * service or a connection. Reads always pass, so a write flood cannot take their connections.
+ * <p>
+ * Clients are told apart by remote address. The client header is only believed on requests from
+ * one of the trusted proxies, which set it themselves; anyone else could rotate it to get a fresh
+ * bucket on every request and push real clients' buckets out of the limiter.
+ */
+public class WriteAdmissionFilter extends OncePerRequestFilter {
+
+    private final ClientRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final String clientHeader;
+    private final Set<String> trustedProxies;
+    private final Counter admitted;
+    private final Counter rateLimited;
+    private final Counter overloaded;
+
+    public WriteAdmissionFilter(ClientRateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                String clientHeader, Set<String> trustedProxies, MeterRegistry registry) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.clientHeader = clientHeader;
+        this.trustedProxies = Set.copyOf(trustedProxies);
+        this.admitted = registry.counter("tasks.admission.decisions", "outcome", "admitted");
+        this.rateLimited = registry.counter("tasks.admission.decisions", "outcome", "rate_limited");
+        this.overloaded = registry.counter("tasks.admission.decisions", "outcome", "overloaded");
+        registry.gauge("tasks.admission.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::limit);
+        registry.gauge("tasks.admission.concurrency.in-flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::inFlight);
+        registry.gauge("tasks.admission.clients", rateLimiter, ClientRateLimiter::clients);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long wait = rateLimiter.tryAcquire(clientOf(request));
+        if (wait > 0) {
+            rateLimited.increment();
+            reject(response, wait, "Write rate limit exceeded");
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            overloaded.increment();
+            reject(response, 0, "Too many writes in progress");
+            return;
+        }
+        admitted.increment();
+        long started = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long now = System.nanoTime();
+            concurrencyLimiter.release(now - started, now);
+        }
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (!trustedProxies.contains(address)) {
+            return address;
+        }
+        String client = request.getHeader(clientHeader);
+        if (client == null) {
+            return address;
+        }
+        // A list such as X-Forwarded-For ends with the address our proxy saw; earlier entries are the client's word
+        client = client.substring(client.lastIndexOf(',') + 1).strip();
+        return client.isEmpty() ? address : client;
+    }
+
+    // Retry-After takes whole seconds, so anything shorter is rounded up to one
+    private static void reject(HttpServletResponse response, long waitNanos, String message) throws IOException {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), message);
+    }
+}
@@ -0,0 +1,69 @@
+package com.createfuture.training.taskmanager.controller;
+
+import com.createfuture.training.taskmanager.profiling.ProfilingDataSource;
+import com.createfuture.training.taskmanager.profiling.SlowStatement;
+import com.createfuture.training.taskmanager.profiling.StatementProfiler;
+import com.createfuture.training.taskmanager.profiling.StatementStatistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/admin/statements")
+@ConditionalOnProperty(name = "tasks.jdbc-profiling.enabled", havingValue = "true")
+public class AdminStatementController {
+
+    private final StatementProfiler profiler;
+    private final ProfilingDataSource dataSource; // null if something replaced the profiled DataSource
+
+    public record SlowStatementReport(String sql, String tenant, Instant at, double totalMs, double executeMs,
+                                      double fetchMs, long rows, boolean failed, String plan) {
+    }
+
+    public AdminStatementController(StatementProfiler profiler, DataSource dataSource) {
+        this.profiler = profiler;
+        this.dataSource = dataSource instanceof ProfilingDataSource profiled ? profiled : null;
+    }
+
+    // GET /api/admin/statements?limit=50
+    // Per normalized statement, most total time first
+    @GetMapping
+    public ResponseEntity<List<StatementStatistics>> getStatistics(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(profiler.statistics(Math.max(1, limit)));
+    }
+
+    // GET /api/admin/statements/slow?explain=true
+    // The slowest single executions, slowest first, each with the plan H2 picks for it now
+    @GetMapping("/slow")
+    public ResponseEntity<List<SlowStatementReport>> getSlowStatements(@RequestParam(defaultValue = "true") boolean explain) {
+        return ResponseEntity.ok(profiler.slowest().stream()
+                .map(statement -> report(statement, explain && dataSource != null ? dataSource.explain(statement) : null))
+                .toList());
+    }
+
+    // DELETE /api/admin/statements
+    @DeleteMapping
+    public ResponseEntity<Void> reset() {
+        profiler.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    private static SlowStatementReport report(SlowStatement statement, String plan) {
+        return new SlowStatementReport(statement.normalizedSql(), statement.tenant(), statement.at(),
+                millis(statement.totalNanos()), millis(statement.executeNanos()), millis(statement.fetchNanos()),
+                statement.rows(), statement.failed(), plan);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.createfuture.training.taskmanager.controller;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.AdminTaskRepository;
+import com.createfuture.training.taskmanager.service.TaskService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/tasks")
+@ConditionalOnProperty(name = "tasks.storage", havingValue = "jdbc", matchIfMissing = true)
+public class AdminTaskController {
+
+    private final AdminTaskRepository adminTaskRepository;
+
+    public AdminTaskController(AdminTaskRepository adminTaskRepository) {
+        this.adminTaskRepository = adminTaskRepository;
+    }
+
+    // GET /api/admin/tasks?limit=100
+    // Fans out to every shard; limit applies per shard
+    @GetMapping
+    public ResponseEntity<Map<String, List<Task>>> getTasksByTenant(@RequestParam(defaultValue = "100") int limit) {
+        int perShard = Math.max(1, Math.min(limit, TaskService.MAX_PAGE_SIZE));
+        return ResponseEntity.ok(adminTaskRepository.findAllByTenant(perShard));
+    }
+}
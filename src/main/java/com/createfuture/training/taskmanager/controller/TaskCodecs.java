@@ -0,0 +1,36 @@
+package com.createfuture.training.taskmanager.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Jackson mappers for the media types the task API can produce. The CBOR mapper is built from the
+ * same {@link Jackson2ObjectMapperBuilder} as Boot's JSON mapper, so both share modules and
+ * {@code spring.jackson.*} settings.
+ */
+@Component
+public class TaskCodecs {
+
+    // RFC 8742: CBOR items back to back, the binary counterpart of NDJSON
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+    public static final MediaType APPLICATION_CBOR_SEQ = MediaType.parseMediaType(APPLICATION_CBOR_SEQ_VALUE);
+
+    private final ObjectMapper json;
+    private final ObjectMapper cbor;
+
+    public TaskCodecs(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder) {
+        this.json = objectMapper;
+        this.cbor = builder.factory(new CBORFactory()).build();
+    }
+
+    public ObjectMapper mapperFor(MediaType mediaType) {
+        return isCbor(mediaType) ? cbor : json;
+    }
+
+    public static boolean isCbor(MediaType mediaType) {
+        return MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType) || APPLICATION_CBOR_SEQ.equalsTypeAndSubtype(mediaType);
+    }
+}
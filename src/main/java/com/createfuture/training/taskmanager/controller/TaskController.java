@@ -1,26 +1,49 @@
 package com.createfuture.training.taskmanager.controller;
 
 import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.service.TaskDataVersion;
 import com.createfuture.training.taskmanager.service.TaskService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Controller
 public class TaskController {
 
+    static final int PAGE_SIZE = 50;
+
     private final TaskService taskService;
+    private final TaskDataVersion taskDataVersion;
+    private final TaskListCache taskListCache;
+    private final ITemplateEngine templateEngine;
 
     @Autowired
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, TaskDataVersion taskDataVersion, TaskListCache taskListCache,
+                          ITemplateEngine templateEngine) {
         this.taskService = taskService;
+        this.taskDataVersion = taskDataVersion;
+        this.taskListCache = taskListCache;
+        this.templateEngine = templateEngine;
     }
 
     @GetMapping("/")
-    public String home(Model model) {
+    public String home(@RequestParam(required = false) Long afterId, Model model,
+                       HttpServletRequest request, HttpServletResponse response) {
         model.addAttribute("task", new Task());
-        model.addAttribute("tasks", taskService.getAllTasks());
+        model.addAttribute("taskList", new TaskListFragment(taskDataVersion.current(), afterId, request, response));
         return "tasks";
     }
 
@@ -36,4 +59,44 @@ public class TaskController {
         return "redirect:/";
     }
 
+    /**
+     * The task list part of the page, rendered from {@code task-list.html} and shared by every
+     * visitor until the data version changes. The page template asks for it only after writing
+     * the header and the add form, so a miss first flushes those to the browser (the response
+     * goes out chunked) and then queries and renders the list.
+     */
+    public final class TaskListFragment {
+        private final long version;
+        private final Long afterId;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        private TaskListFragment(long version, Long afterId, HttpServletRequest request, HttpServletResponse response) {
+            this.version = version;
+            this.afterId = afterId;
+            this.request = request;
+            this.response = response;
+        }
+
+        public String html() throws IOException {
+            String resource = "page:" + afterId;
+            if (taskListCache.getIfPresent(version, resource, MediaType.TEXT_HTML) == null) {
+                response.flushBuffer();
+            }
+            byte[] html = taskListCache.getRendered(version, resource, MediaType.TEXT_HTML, this::render).body();
+            return new String(html, StandardCharsets.UTF_8);
+        }
+
+        private byte[] render() {
+            List<Task> tasks = taskService.getOpenTasks(afterId, PAGE_SIZE);
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("tasks", tasks);
+            if (tasks.size() == PAGE_SIZE) {
+                variables.put("nextAfterId", tasks.get(tasks.size() - 1).getId());
+            }
+            WebContext context = new WebContext(JakartaServletWebApplication.buildApplication(request.getServletContext())
+                    .buildExchange(request, response), request.getLocale(), variables);
+            return templateEngine.process("task-list", context).getBytes(StandardCharsets.UTF_8);
+        }
+    }
 }
@@ -0,0 +1,213 @@
+package com.createfuture.training.taskmanager.controller;
+
+import com.createfuture.training.taskmanager.service.TaskEvent;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans {@link TaskEvent}s out to the SSE subscribers of the event's tenant. Each subscriber has a bounded buffer,
+ * drained on a virtual thread only while it has something to send, so a consumer that stops
+ * reading blocks nobody but itself. When a slow subscriber's buffer is full the configured
+ * {@link OverflowPolicy} either drops its oldest event or disconnects it, and a subscriber whose
+ * send has been blocked for longer than the send timeout is disconnected.
+ */
+@Component
+public class TaskEventBroadcaster {
+
+    public enum OverflowPolicy {DROP_OLDEST, DISCONNECT}
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeat;
+    private final long sendTimeoutNanos;
+    private final Counter dropped;
+    private final Counter disconnected;
+    private final Counter timedOut;
+
+    public TaskEventBroadcaster(MeterRegistry registry,
+                                @Value("${tasks.stream.buffer-size:256}") int bufferSize,
+                                @Value("${tasks.stream.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+                                @Value("${tasks.stream.send-timeout:10s}") Duration sendTimeout,
+                                @Value("${tasks.stream.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.dispatcher = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-sse-", 0).factory());
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("task-sse-heartbeat").daemon().factory());
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeat,
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        // Checked twice per timeout, so a stalled subscriber goes within 1.5 timeouts
+        this.heartbeat.scheduleAtFixedRate(this::disconnectStalled,
+                sendTimeout.toMillis() / 2, Math.max(1, sendTimeout.toMillis() / 2), TimeUnit.MILLISECONDS);
+        this.dropped = registry.counter("tasks.stream.dropped");
+        this.disconnected = registry.counter("tasks.stream.disconnected", "reason", "overflow");
+        this.timedOut = registry.counter("tasks.stream.disconnected", "reason", "send_timeout");
+        registry.gauge("tasks.stream.subscribers", subscribers, Set::size);
+    }
+
+    public SseEmitter subscribe() {
+        // No timeout: the connection lives until the client leaves or the heartbeat fails
+        return subscribe(new SseEmitter(0L));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, TenantContext.current());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // An immediate heartbeat commits the response headers instead of waiting for the first event
+        subscriber.buffer.offer(HEARTBEAT);
+        subscriber.scheduleDrain();
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        Envelope envelope = new Envelope(sequence.incrementAndGet(), event);
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.tenant.equals(event.tenant())) {
+                subscriber.offer(envelope);
+            }
+        }
+    }
+
+    private void sendHeartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            // A full buffer means data is already on its way, so the heartbeat can be skipped
+            if (subscriber.buffer.offer(HEARTBEAT)) {
+                subscriber.scheduleDrain();
+            }
+        }
+    }
+
+    // The blocked send keeps its virtual thread until the container gives up on the write, but the
+    // subscriber stops receiving events and heartbeats now
+    private void disconnectStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                timedOut.increment();
+                subscriber.close();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+        dispatcher.shutdown();
+    }
+
+    private record Envelope(long id, TaskEvent event) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final String tenant;
+        private final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // System.nanoTime() when the send in progress started, 0 when not sending
+        private volatile long sendingSince;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, String tenant) {
+            this.emitter = emitter;
+            this.tenant = tenant;
+        }
+
+        void offer(Envelope envelope) {
+            while (!buffer.offer(envelope)) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    disconnected.increment();
+                    close();
+                    return;
+                }
+                if (buffer.poll() != null) {
+                    dropped.increment();
+                }
+            }
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Object next;
+                while (!closed && (next = buffer.poll()) != null) {
+                    sendingSince = System.nanoTime();
+                    try {
+                        emitter.send(toSse(next));
+                    } catch (IOException | IllegalStateException e) {
+                        close();
+                        return;
+                    } finally {
+                        sendingSince = 0;
+                    }
+                }
+                draining.set(false);
+            } while (!buffer.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        // complete() waits for a send in progress, so it never runs on the thread publishing events
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+            try {
+                dispatcher.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                emitter.complete();
+            }
+        }
+
+        private static SseEmitter.SseEventBuilder toSse(Object next) {
+            if (next == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            Envelope envelope = (Envelope) next;
+            return SseEmitter.event()
+                    .id(String.valueOf(envelope.id()))
+                    .name(envelope.event().type().name().toLowerCase(Locale.ROOT))
+                    .data(envelope.event());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.createfuture.training.taskmanager.controller;
+
+import com.createfuture.training.taskmanager.service.TaskDataVersion;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized list responses keyed by tenant, {@link TaskDataVersion}, resource and media type,
+ * plus HTML the Thymeleaf page renders itself.
+ * Concurrent misses for the same key wait for a single query and serialization. Entries for older
+ * versions are never read again and age out under the byte budget ({@code tasks.list-cache.max-size}).
+ * <p>
+ * With {@code server.compression.enabled}, bodies above {@code server.compression.min-response-size}
+ * are also gzipped once on insert, so Tomcat does not compress the same bytes for every client.
+ */
+@Component
+public class TaskListCache {
+
+    // gzipped is null when the body is too small to compress or compression is off
+    public record Entry(byte[] body, byte[] gzipped) {
+    }
+
+    private record Key(String tenant, long version, String resource, MediaType format) {
+    }
+
+    private final Cache<Key, Entry> cache;
+    private final TaskCodecs codecs;
+    private final boolean compression;
+    private final long compressionMinSize;
+
+    public TaskListCache(TaskCodecs codecs, MeterRegistry registry,
+                         @Value("${tasks.list-cache.max-size:64MB}") DataSize maxSize,
+                         @Value("${server.compression.enabled:false}") boolean compression,
+                         @Value("${server.compression.min-response-size:2KB}") DataSize compressionMinSize) {
+        this.codecs = codecs;
+        this.compression = compression;
+        this.compressionMinSize = compressionMinSize.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .<Key, Entry>weigher((key, entry) -> entry.body().length
+                        + (entry.gzipped() == null ? 0 : entry.gzipped().length))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "tasks.list-cache");
+    }
+
+    /**
+     * Returns {@code resource} at {@code version} in {@code format}, serializing {@code body} on a
+     * miss. Read the version before the data, as the controller does for the ETag.
+     */
+    public Entry get(long version, String resource, MediaType format, Supplier<?> body) {
+        return load(version, resource, format, true, () -> {
+            try {
+                return codecs.mapperFor(format).writeValueAsBytes(body.get());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // For pieces the caller renders and embeds in a larger response, such as HTML fragments; never gzipped
+    public Entry getRendered(long version, String resource, MediaType format, Supplier<byte[]> render) {
+        return load(version, resource, format, false, render);
+    }
+
+    public Entry getIfPresent(long version, String resource, MediaType format) {
+        return cache.getIfPresent(new Key(TenantContext.current(), version, resource, format));
+    }
+
+    // True when compression is on and the Accept-Encoding header allows gzip
+    public boolean acceptsGzip(String acceptEncoding) {
+        if (!compression || acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parameters = coding.split(";");
+            if (parameters[0].trim().equals("gzip")) {
+                return parameters.length == 1 || !parameters[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private Entry load(long version, String resource, MediaType format, boolean compressible, Supplier<byte[]> body) {
+        return cache.get(new Key(TenantContext.current(), version, resource, format), key -> {
+            byte[] bytes = body.get();
+            try {
+                return new Entry(bytes, compressible && compression && bytes.length >= compressionMinSize ? gzip(bytes) : null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, 8192)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -1,42 +1,214 @@
 package com.createfuture.training.taskmanager.controller;
 
 import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskBulkResult;
+import com.createfuture.training.taskmanager.model.TaskSelector;
+import com.createfuture.training.taskmanager.service.TaskDataVersion;
+import com.createfuture.training.taskmanager.service.TaskSearchIndex;
 import com.createfuture.training.taskmanager.service.TaskService;
+import com.createfuture.training.taskmanager.tenant.TenantFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/tasks")
 public class TaskRestController {
 
+    static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+    static final int MAX_BATCH_SIZE = 10_000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final TaskService taskService;
+    private final TaskSearchIndex taskSearchIndex;
+    private final TaskEventBroadcaster taskEventBroadcaster;
+    private final TaskDataVersion taskDataVersion;
+    private final TaskListCache taskListCache;
+    private final TaskCodecs taskCodecs;
 
     @Autowired
-    public TaskRestController(TaskService taskService) {
+    public TaskRestController(TaskService taskService, TaskSearchIndex taskSearchIndex,
+                              TaskEventBroadcaster taskEventBroadcaster, TaskDataVersion taskDataVersion,
+                              TaskListCache taskListCache, TaskCodecs taskCodecs) {
         this.taskService = taskService;
+        this.taskSearchIndex = taskSearchIndex;
+        this.taskEventBroadcaster = taskEventBroadcaster;
+        this.taskDataVersion = taskDataVersion;
+        this.taskListCache = taskListCache;
+        this.taskCodecs = taskCodecs;
     }
 
     // GET /api/tasks
+    // The full open list can be large, so it is built and serialized in the compact columnar form
+    @GetMapping(params = {"!afterId", "!limit"})
+    public ResponseEntity<byte[]> getAllTasks(WebRequest request) {
+        return cachedList("all", MediaType.APPLICATION_JSON, taskService::getOpenTaskColumns, request);
+    }
+
+    // GET /api/tasks with Accept: application/cbor
+    @GetMapping(params = {"!afterId", "!limit"}, produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<byte[]> getAllTasksCbor(WebRequest request) {
+        return cachedList("all", MediaType.APPLICATION_CBOR, taskService::getOpenTaskColumns, request);
+    }
+
+    // GET /api/tasks?afterId=42&limit=100
+    // The tag is weak because the same page may go out as JSON or CBOR, gzipped or not
     @GetMapping
-    public ResponseEntity<List<Task>> getAllTasks() {
-        List<Task> tasks = taskService.getAllTasks();
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<Task>> getOpenTasksPage(@RequestParam(required = false) Long afterId,
+                                                       @RequestParam(required = false) Integer limit,
+                                                       WebRequest request) {
+        if (request.checkNotModified("W/" + taskDataVersion.etag())) {
+            return null;
+        }
+        int pageSize = TaskService.pageSize(limit != null ? limit : DEFAULT_PAGE_SIZE);
+        List<Task> tasks = taskService.getOpenTasks(afterId, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, TenantFilter.TENANT_HEADER);
+        if (!tasks.isEmpty() && tasks.size() >= pageSize) {
+            response.header(NEXT_AFTER_ID_HEADER, String.valueOf(tasks.get(tasks.size() - 1).getId()));
+        }
+        return response.body(tasks);
+    }
+
+    // GET /api/tasks/history?afterId=42&limit=100
+    // Done tasks, read from the archive as well as the task table
+    @GetMapping("/history")
+    public ResponseEntity<List<Task>> getTaskHistory(@RequestParam(required = false) Long afterId,
+                                                     @RequestParam(required = false) Integer limit) {
+        int pageSize = TaskService.pageSize(limit != null ? limit : DEFAULT_PAGE_SIZE);
+        List<Task> tasks = taskService.getTaskHistory(afterId, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!tasks.isEmpty() && tasks.size() >= pageSize) {
+            response.header(NEXT_AFTER_ID_HEADER, String.valueOf(tasks.get(tasks.size() - 1).getId()));
+        }
+        return response.body(tasks);
+    }
+
+    // GET /api/tasks/export?done=false
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(@RequestParam(required = false) Boolean done) {
+        return export(done, MediaType.APPLICATION_NDJSON);
+    }
+
+    // GET /api/tasks/export?done=false with Accept: application/cbor-seq
+    @GetMapping(value = "/export", produces = TaskCodecs.APPLICATION_CBOR_SEQ_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTasksCbor(@RequestParam(required = false) Boolean done) {
+        return export(done, TaskCodecs.APPLICATION_CBOR_SEQ);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(Boolean done, MediaType format) {
+        boolean ndjson = !TaskCodecs.isCbor(format);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = taskCodecs.mapperFor(format).createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (ndjson) {
+                    generator.setRootValueSeparator(null);
+                }
+                taskService.exportTasks(done, task -> {
+                    try {
+                        generator.writeObject(task);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(format).body(body);
+    }
+
+    // GET /api/tasks/search?q=feed dog&offset=0&limit=20
+    @GetMapping("/search")
+    public ResponseEntity<List<Task>> searchTasks(@RequestParam String q,
+                                                  @RequestParam(defaultValue = "0") int offset,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        int pageSize = Math.max(0, Math.min(limit, TaskService.MAX_PAGE_SIZE));
+        return ResponseEntity.ok(taskSearchIndex.search(q, Math.max(0, offset), pageSize));
     }
 
-    // GET /api/tasks/top?n=5
+    // GET /api/tasks/stream
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskEvents() {
+        return taskEventBroadcaster.subscribe();
+    }
+
+    // GET /api/tasks/top?n=5; n is capped at MAX_PAGE_SIZE, which also bounds the list cache entries
     @GetMapping("/top")
-    public ResponseEntity<List<Task>> getTopNTasks(@RequestParam(defaultValue = "5") int n) {
-        List<Task> topTasks = taskService.getTopNTasks(n);
-        return ResponseEntity.ok(topTasks);
+    public ResponseEntity<byte[]> getTopNTasks(@RequestParam(defaultValue = "5") int n, WebRequest request) {
+        return topN(n, MediaType.APPLICATION_JSON, request);
     }
 
-    // POST /api/tasks
+    // GET /api/tasks/top?n=5 with Accept: application/cbor
+    @GetMapping(value = "/top", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<byte[]> getTopNTasksCbor(@RequestParam(defaultValue = "5") int n, WebRequest request) {
+        return topN(n, MediaType.APPLICATION_CBOR, request);
+    }
+
+    private ResponseEntity<byte[]> topN(int n, MediaType format, WebRequest request) {
+        if (n < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        int count = Math.min(n, TaskService.MAX_PAGE_SIZE);
+        return cachedList("top:" + count, format, () -> taskService.getTopNTasks(count), request);
+    }
+
+    /**
+     * Serves a list from {@link TaskListCache}. Each media type and encoding gets its own strong tag,
+     * and If-None-Match is answered from the data version alone, before any query runs.
+     */
+    private ResponseEntity<byte[]> cachedList(String resource, MediaType format, Supplier<?> body, WebRequest request) {
+        long version = taskDataVersion.current();
+        boolean gzip = taskListCache.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String variant = (TaskCodecs.isCbor(format) ? "-cbor" : "") + (gzip ? "-gzip" : "");
+        if (request.checkNotModified(taskDataVersion.etagOf(version, variant))) {
+            return null;
+        }
+        TaskListCache.Entry entry = taskListCache.get(version, resource, format, body);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, TenantFilter.TENANT_HEADER);
+        if (gzip && entry.gzipped() != null) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzipped());
+        }
+        return response.body(entry.body());
+    }
+
+    // GET /api/tasks/{id}
+    @GetMapping("/{id}")
+    public ResponseEntity<Task> getTask(@PathVariable Long id) {
+        Task task = taskService.getTask(id);
+        return task != null ? ResponseEntity.ok().eTag(etagOf(task)).body(task) : ResponseEntity.notFound().build();
+    }
+
+    // POST /api/tasks  {"title": "...", "priority": 2, "dueDate": "2026-10-31"}
     @PostMapping
     public ResponseEntity<Task> createTask(@RequestBody Task task) {
-        Task created = taskService.addTask(task.getTitle());
+        if (!Task.isValidDueDate(task.getDueDate())) {
+            return ResponseEntity.badRequest().build();
+        }
+        Task created = taskService.addTask(task);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(etagOf(created)).body(created);
+    }
+
+    // POST /api/tasks/batch
+    @PostMapping("/batch")
+    public ResponseEntity<List<Task>> createTasks(@RequestBody List<String> titles) {
+        if (titles.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        List<Task> created = taskService.addTasks(titles);
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
@@ -44,6 +216,9 @@ public class TaskRestController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
         boolean deleted = taskService.deleteTask(id);
+        if (taskService.isWriteBehind()) {
+            return ResponseEntity.accepted().build();
+        }
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
@@ -51,13 +226,89 @@ public class TaskRestController {
     @PatchMapping("/{id}/done")
     public ResponseEntity<Void> markTaskAsDone(@PathVariable Long id) {
         boolean markedDone = taskService.markDone(id);
+        if (taskService.isWriteBehind()) {
+            return ResponseEntity.accepted().build();
+        }
         return markedDone ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
-    // PUT /api/tasks/{id}
+    // PATCH /api/tasks/done  {"ids": [1, 2, 3]} or {"done": false, "titlePrefix": "Sprint 12"}
+    // A predicate covers up to tasks.bulk.max-matches tasks; X-Next-After-Id then goes back as ?afterId= for the rest
+    @PatchMapping("/done")
+    public ResponseEntity<TaskBulkResult> markTasksAsDone(@RequestBody TaskSelector selector,
+                                                          @RequestParam(required = false) Long afterId) {
+        ResponseEntity<TaskBulkResult> rejected = rejectSelector(selector, afterId);
+        return rejected != null ? rejected : bulkResponse(taskService.markDone(selector, afterId == null ? 0L : afterId));
+    }
+
+    // DELETE /api/tasks  {"ids": [1, 2, 3]} or {"done": true}
+    @DeleteMapping
+    public ResponseEntity<TaskBulkResult> deleteTasks(@RequestBody TaskSelector selector,
+                                                      @RequestParam(required = false) Long afterId) {
+        ResponseEntity<TaskBulkResult> rejected = rejectSelector(selector, afterId);
+        return rejected != null ? rejected : bulkResponse(taskService.deleteTasks(selector, afterId == null ? 0L : afterId));
+    }
+
+    private static ResponseEntity<TaskBulkResult> rejectSelector(TaskSelector selector, Long afterId) {
+        // A cursor only continues a predicate
+        if (!selector.isValid() || (afterId != null && selector.hasIds())) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (selector.hasIds() && selector.ids().size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return null;
+    }
+
+    private static ResponseEntity<TaskBulkResult> bulkResponse(TaskBulkResult result) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.nextAfterId() != null) {
+            response.header(NEXT_AFTER_ID_HEADER, String.valueOf(result.nextAfterId()));
+        }
+        return response.body(result);
+    }
+
+    // PUT /api/tasks/{id}  with If-Match: "3" to update only if nobody has changed the task since version 3
     @PutMapping("/{id}")
-    public ResponseEntity<Task> updateTask(@PathVariable Long id, @RequestBody Task task) {
-        Task updatedTask = taskService.updateTask(id, task.getTitle());
-        return updatedTask != null ? ResponseEntity.ok(updatedTask) : ResponseEntity.notFound().build();
+    public ResponseEntity<Task> updateTask(@PathVariable Long id, @RequestBody Task task,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (!Task.isValidDueDate(task.getDueDate())) {
+            return ResponseEntity.badRequest().build();
+        }
+        Task updatedTask;
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            updatedTask = taskService.updateTask(id, task);
+        } else {
+            Long expectedVersion = versionOf(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            try {
+                updatedTask = taskService.updateTask(id, task, expectedVersion);
+            } catch (OptimisticLockingFailureException e) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
+        return updatedTask != null
+                ? ResponseEntity.ok().eTag(etagOf(updatedTask)).body(updatedTask)
+                : ResponseEntity.notFound().build();
+    }
+
+    // A task's strong entity tag is its version
+    static String etagOf(Task task) {
+        return "\"" + task.getVersion() + "\"";
+    }
+
+    // If-Match compares strongly, so a weak tag, a list or anything that is not one of ours never matches
+    private static Long versionOf(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
@@ -1,15 +1,50 @@
 package com.createfuture.training.taskmanager.model;
 
+import com.createfuture.training.taskmanager.tenant.TenantContext;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
 
 @Entity
-@Table(name = "tasks")
+// idx_tasks_tenant_rank, which serves findTopN, needs NULLS LAST and so only exists in db/schema.sql,
+// as do idx_tasks_done_at and the tasks_archive table the archiver moves old done tasks to
+@Table(name = "tasks", indexes = @Index(name = "idx_tasks_tenant_done_id", columnList = "tenant, done, id"))
 public class Task {
+
+    /**
+     * Ranking of {@code GET /api/tasks/top}: higher priority first, then the earliest due date,
+     * with undated tasks after dated ones, then the oldest task.
+     */
+    public static final Comparator<Task> BY_RANK = Comparator.comparingInt(Task::getPriority).reversed()
+            .thenComparing(Task::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Task::getId);
+
+    // Due dates are kept as int epoch days in TaskColumns and the write-ahead log; the API accepts four-digit years
+    public static final LocalDate MIN_DUE_DATE = LocalDate.of(1, 1, 1);
+    public static final LocalDate MAX_DUE_DATE = LocalDate.of(9999, 12, 31);
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String title;
     private boolean done;
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int priority;
+    private LocalDate dueDate;
+    // Bumped by every change to the stored task; the task's ETag, checked by conditional updates
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+    // Written by the repository from the TenantContext; never part of the API
+    @Column(nullable = false, length = 64)
+    @ColumnDefault("'" + TenantContext.DEFAULT_TENANT + "'")
+    private String tenant = TenantContext.DEFAULT_TENANT;
+    // Set by the repository when the task is marked done, so the archiver can tell its age; never part of the API
+    private OffsetDateTime doneAt;
 
     public Task() {
         // Default constructor is needed for Spring's data binding
@@ -32,6 +67,28 @@ public class Task {
         this.done = done; 
     }
 
+    public Task(Long id, String title, boolean done, int priority, LocalDate dueDate) {
+        this(id, title, done, priority, dueDate, 0L);
+    }
+
+    public Task(Long id, String title, boolean done, int priority, LocalDate dueDate, long version) {
+        this.id = id;
+        this.title = title;
+        this.done = done;
+        this.priority = priority;
+        this.dueDate = dueDate;
+        this.version = version;
+    }
+
+    // Stored and cached tasks are shared, so changes are made on a copy
+    public Task withDone(boolean done) {
+        return new Task(id, title, done, priority, dueDate, version);
+    }
+
+    public Task withVersion(long version) {
+        return new Task(id, title, done, priority, dueDate, version);
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -56,12 +113,43 @@ public class Task {
         this.done = done;
     }
 
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public static boolean isValidDueDate(LocalDate dueDate) {
+        return dueDate == null || (!dueDate.isBefore(MIN_DUE_DATE) && !dueDate.isAfter(MAX_DUE_DATE));
+    }
+
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDate = dueDate;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Task{" +
                 "id=" + id +
                 ", title='" + title + '\'' +
                 ", done=" + done +
+                ", priority=" + priority +
+                ", dueDate=" + dueDate +
+                ", version=" + version +
                 '}';
     }
 }
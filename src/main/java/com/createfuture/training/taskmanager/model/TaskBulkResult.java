@@ -0,0 +1,30 @@
+package com.createfuture.training.taskmanager.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Map;
+
+/**
+ * Outcome of a bulk mutation. {@code outcomes} has one entry per distinct selected id, in the order
+ * the ids were given (or id order for a predicate). A predicate that matched more tasks than one
+ * call applies to leaves {@code nextAfterId}, the id to continue after; it is sent as a header.
+ */
+public record TaskBulkResult(int matched, int changed, Map<Long, Outcome> outcomes, @JsonIgnore Long nextAfterId) {
+
+    public enum Outcome {
+        DONE, ALREADY_DONE, DELETED, NOT_FOUND;
+
+        public boolean changed() {
+            return this == DONE || this == DELETED;
+        }
+    }
+
+    public static TaskBulkResult of(Map<Long, Outcome> outcomes) {
+        return of(outcomes, null);
+    }
+
+    public static TaskBulkResult of(Map<Long, Outcome> outcomes, Long nextAfterId) {
+        int changed = (int) outcomes.values().stream().filter(Outcome::changed).count();
+        return new TaskBulkResult(outcomes.size(), changed, outcomes, nextAfterId);
+    }
+}
@@ -0,0 +1,300 @@
+package com.createfuture.training.taskmanager.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Column-oriented, read-only list of tasks for bulk responses. Ids and versions live in
+ * {@code long[]}s, the done flags in a {@link BitSet}, priorities and due dates (as epoch days) in
+ * {@code int[]}s, and all titles in one UTF-8 buffer addressed by offsets. A row costs about 29
+ * bytes plus its title, with no per-row objects. It serializes to the same JSON array as a
+ * {@code List<Task>}, copying title bytes straight into the output.
+ */
+@JsonSerialize(using = TaskColumns.Serializer.class)
+public final class TaskColumns {
+
+    private static final TaskColumns EMPTY = new Builder(0).build();
+
+    private final int size;
+    private final long[] ids;
+    private final BitSet done;
+    private final BitSet nullTitles;
+    private final byte[] titles;
+    private final int[] titleOffsets; // title i is [offsets[i], offsets[i + 1]); arrays may be longer than size
+    private final int[] priorities;
+    private final int[] dueDays;
+    private final BitSet nullDueDates;
+    private final long[] versions;
+
+    private TaskColumns(int size, long[] ids, BitSet done, BitSet nullTitles, byte[] titles, int[] titleOffsets,
+                        int[] priorities, int[] dueDays, BitSet nullDueDates, long[] versions) {
+        this.size = size;
+        this.ids = ids;
+        this.done = done;
+        this.nullTitles = nullTitles;
+        this.titles = titles;
+        this.titleOffsets = titleOffsets;
+        this.priorities = priorities;
+        this.dueDays = dueDays;
+        this.nullDueDates = nullDueDates;
+        this.versions = versions;
+    }
+
+    public static TaskColumns empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long id(int row) {
+        return ids[checkRow(row)];
+    }
+
+    public boolean isDone(int row) {
+        return done.get(checkRow(row));
+    }
+
+    public String title(int row) {
+        checkRow(row);
+        if (nullTitles.get(row)) {
+            return null;
+        }
+        return new String(titles, titleOffsets[row], titleOffsets[row + 1] - titleOffsets[row], StandardCharsets.UTF_8);
+    }
+
+    public int priority(int row) {
+        return priorities[checkRow(row)];
+    }
+
+    public LocalDate dueDate(int row) {
+        return nullDueDates.get(checkRow(row)) ? null : LocalDate.ofEpochDay(dueDays[row]);
+    }
+
+    public long version(int row) {
+        return versions[checkRow(row)];
+    }
+
+    public Task task(int row) {
+        return new Task(id(row), title(row), isDone(row), priority(row), dueDate(row), version(row));
+    }
+
+    /**
+     * Returns the rows whose id matches, or this instance when every row does.
+     */
+    public TaskColumns filter(LongPredicate keep) {
+        Builder kept = null;
+        for (int row = 0; row < size; row++) {
+            boolean match = keep.test(ids[row]);
+            if (kept == null && !match) {
+                kept = new Builder(size);
+                for (int copied = 0; copied < row; copied++) {
+                    kept.addRow(this, copied);
+                }
+            } else if (kept != null && match) {
+                kept.addRow(this, row);
+            }
+        }
+        return kept == null ? this : kept.build();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + size + " tasks");
+        }
+        return row;
+    }
+
+    /**
+     * Collects rows into arrays sized from {@code expectedSize}, so a good estimate means no
+     * copying. The title buffer is sized from the average length of the first rows.
+     */
+    public static final class Builder {
+        private static final int TITLE_SAMPLE_ROWS = 1024;
+        private static final int INITIAL_TITLE_BYTES = 16;
+
+        private final int expectedSize;
+        private int size;
+        private long[] ids;
+        private final BitSet done = new BitSet();
+        private final BitSet nullTitles = new BitSet();
+        private byte[] titles;
+        private int[] titleOffsets;
+        private int[] priorities;
+        private int[] dueDays;
+        private final BitSet nullDueDates = new BitSet();
+        private long[] versions;
+
+        private Builder(int expectedSize) {
+            this.expectedSize = expectedSize;
+            int capacity = Math.max(expectedSize, 16);
+            ids = new long[capacity];
+            titleOffsets = new int[capacity + 1];
+            priorities = new int[capacity];
+            dueDays = new int[capacity];
+            versions = new long[capacity];
+            titles = new byte[Math.min(capacity, TITLE_SAMPLE_ROWS) * INITIAL_TITLE_BYTES];
+        }
+
+        public Builder add(long id, String title, boolean isDone) {
+            return add(id, title, isDone, 0, null);
+        }
+
+        public Builder add(long id, String title, boolean isDone, int priority, LocalDate dueDate) {
+            return add(id, title, isDone, priority, dueDate, 0L);
+        }
+
+        public Builder add(long id, String title, boolean isDone, int priority, LocalDate dueDate, long version) {
+            ensureRowCapacity();
+            ids[size] = id;
+            if (isDone) {
+                done.set(size);
+            }
+            priorities[size] = priority;
+            if (dueDate == null) {
+                nullDueDates.set(size);
+            } else {
+                dueDays[size] = Math.toIntExact(dueDate.toEpochDay());
+            }
+            versions[size] = version;
+            int offset = titleOffsets[size];
+            if (title == null) {
+                nullTitles.set(size);
+            } else {
+                offset = appendUtf8(title, offset);
+            }
+            titleOffsets[++size] = offset;
+            if (size == TITLE_SAMPLE_ROWS && expectedSize > size) {
+                presizeTitles(offset);
+            }
+            return this;
+        }
+
+        // Average title length so far, times the expected rows, plus an eighth of slack
+        private void presizeTitles(int sampledBytes) {
+            long estimate = (long) sampledBytes * expectedSize / size * 9 / 8;
+            if (estimate > titles.length) {
+                titles = Arrays.copyOf(titles, (int) Math.min(estimate, Integer.MAX_VALUE - 8));
+            }
+        }
+
+        public Builder add(Task task) {
+            return add(task.getId(), task.getTitle(), task.isDone(), task.getPriority(), task.getDueDate(),
+                    task.getVersion());
+        }
+
+        private void addRow(TaskColumns source, int row) {
+            ensureRowCapacity();
+            ids[size] = source.ids[row];
+            done.set(size, source.done.get(row));
+            nullTitles.set(size, source.nullTitles.get(row));
+            priorities[size] = source.priorities[row];
+            dueDays[size] = source.dueDays[row];
+            nullDueDates.set(size, source.nullDueDates.get(row));
+            versions[size] = source.versions[row];
+            int from = source.titleOffsets[row];
+            int length = source.titleOffsets[row + 1] - from;
+            int offset = titleOffsets[size];
+            ensureTitleCapacity(offset + length);
+            System.arraycopy(source.titles, from, titles, offset, length);
+            titleOffsets[++size] = offset + length;
+        }
+
+        // ASCII titles are copied char by char; anything else goes through the JDK encoder
+        private int appendUtf8(String title, int offset) {
+            int length = title.length();
+            ensureTitleCapacity(offset + length);
+            for (int i = 0; i < length; i++) {
+                char c = title.charAt(i);
+                if (c >= 0x80) {
+                    byte[] encoded = title.getBytes(StandardCharsets.UTF_8);
+                    ensureTitleCapacity(titleOffsets[size] + encoded.length);
+                    System.arraycopy(encoded, 0, titles, titleOffsets[size], encoded.length);
+                    return titleOffsets[size] + encoded.length;
+                }
+                titles[offset++] = (byte) c;
+            }
+            return offset;
+        }
+
+        private void ensureRowCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                titleOffsets = Arrays.copyOf(titleOffsets, size * 2 + 1);
+                priorities = Arrays.copyOf(priorities, size * 2);
+                dueDays = Arrays.copyOf(dueDays, size * 2);
+                versions = Arrays.copyOf(versions, size * 2);
+            }
+        }
+
+        private void ensureTitleCapacity(int needed) {
+            if (needed > titles.length) {
+                titles = Arrays.copyOf(titles, Math.max(needed, titles.length * 2));
+            }
+        }
+
+        // Arrays are handed over untrimmed; the builder must not be used afterwards
+        public TaskColumns build() {
+            return new TaskColumns(size, ids, done, nullTitles, titles, titleOffsets, priorities, dueDays, nullDueDates, versions);
+        }
+    }
+
+    public static final class Serializer extends StdSerializer<TaskColumns> {
+
+        public Serializer() {
+            super(TaskColumns.class);
+        }
+
+        @Override
+        public void serialize(TaskColumns columns, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            // Only the byte-oriented generators accept raw UTF-8; a Writer target decodes titles instead
+            boolean utf8 = gen instanceof UTF8JsonGenerator || gen instanceof CBORGenerator;
+            gen.writeStartArray(columns, columns.size);
+            for (int row = 0; row < columns.size; row++) {
+                gen.writeStartObject();
+                gen.writeNumberField("id", columns.ids[row]);
+                gen.writeFieldName("title");
+                if (columns.nullTitles.get(row)) {
+                    gen.writeNull();
+                } else if (utf8) {
+                    int from = columns.titleOffsets[row];
+                    gen.writeUTF8String(columns.titles, from, columns.titleOffsets[row + 1] - from);
+                } else {
+                    gen.writeString(columns.title(row));
+                }
+                gen.writeBooleanField("done", columns.done.get(row));
+                gen.writeNumberField("priority", columns.priorities[row]);
+                gen.writeFieldName("dueDate");
+                if (columns.nullDueDates.get(row)) {
+                    gen.writeNull();
+                } else {
+                    // ISO-8601, as Boot's mappers write a LocalDate
+                    gen.writeString(LocalDate.ofEpochDay(columns.dueDays[row]).toString());
+                }
+                gen.writeNumberField("version", columns.versions[row]);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
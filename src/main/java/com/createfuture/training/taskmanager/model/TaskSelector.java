@@ -0,0 +1,31 @@
+package com.createfuture.training.taskmanager.model;
+
+import java.util.List;
+
+/**
+ * Selects the tasks a bulk mutation applies to: either an explicit id list, or a predicate made of
+ * a done flag and/or a title prefix. Unset predicate fields match every task.
+ */
+public record TaskSelector(List<Long> ids, Boolean done, String titlePrefix) {
+
+    public static TaskSelector ofIds(List<Long> ids) {
+        return new TaskSelector(ids, null, null);
+    }
+
+    public static TaskSelector matching(Boolean done, String titlePrefix) {
+        return new TaskSelector(null, done, titlePrefix);
+    }
+
+    public boolean hasIds() {
+        return ids != null;
+    }
+
+    public boolean hasPredicate() {
+        return done != null || titlePrefix != null;
+    }
+
+    // Exactly one form must be used, so an empty selector never means "every task"
+    public boolean isValid() {
+        return hasIds() != hasPredicate();
+    }
+}
@@ -0,0 +1,532 @@
+package com.createfuture.training.taskmanager.profiling;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+/**
+ * Times each execute call and reports it to the {@link StatementProfiler}. An execution that
+ * returns a result set is reported when that result set (or this statement) is closed, with the
+ * time it stayed open as fetch time. Like any JDBC statement it is used by one thread at a time,
+ * so the execution in progress is kept in plain fields.
+ */
+class ProfiledStatement<S extends Statement> implements Statement {
+
+    final S delegate;
+    private final Connection connection;
+    private final StatementProfiler profiler;
+    // Fixed for prepared statements; plain statements take theirs from each execute
+    private String sql;
+    private StatementProfiler.Stats stats;
+    // The execution whose result set is still open
+    private ProfiledResultSet resultSet;
+    // execute() reported a result set that getResultSet() has not fetched yet
+    private boolean resultPending;
+    private long executedAt;
+    private long executeNanos;
+    long rows;
+
+    ProfiledStatement(S delegate, Connection connection, StatementProfiler profiler, String sql) {
+        this.delegate = delegate;
+        this.connection = connection;
+        this.profiler = profiler;
+        if (sql != null) {
+            useSql(sql);
+        }
+    }
+
+    final void useSql(String statementSql) {
+        if (!statementSql.equals(sql)) {
+            sql = statementSql;
+            stats = profiler.statsFor(statementSql);
+        }
+    }
+
+    // Before each execute: a result set the previous one left open is finished with
+    final long started() {
+        completeOpenExecution();
+        rows = 0;
+        return System.nanoTime();
+    }
+
+    final ResultSet opened(long startedAt, ResultSet result) {
+        executedAt = startedAt;
+        executeNanos = System.nanoTime() - startedAt;
+        resultSet = new ProfiledResultSet(result, this);
+        return resultSet;
+    }
+
+    final boolean executed(long startedAt, boolean hasResultSet) throws SQLException {
+        if (hasResultSet) {
+            executedAt = startedAt;
+            executeNanos = System.nanoTime() - startedAt;
+            resultPending = true;
+        } else {
+            finished(startedAt, Math.max(0, delegate.getUpdateCount()));
+        }
+        return hasResultSet;
+    }
+
+    final void finished(long startedAt, long affectedRows) {
+        record(System.nanoTime() - startedAt, 0, affectedRows, false);
+    }
+
+    final void failed(long startedAt) {
+        record(System.nanoTime() - startedAt, 0, 0, true);
+    }
+
+    final void resultSetClosed(ProfiledResultSet closed) {
+        if (closed == resultSet) {
+            completeOpenExecution();
+        }
+    }
+
+    final void completeOpenExecution() {
+        if (resultSet != null || resultPending) {
+            resultSet = null;
+            resultPending = false;
+            record(executeNanos, System.nanoTime() - executedAt - executeNanos, rows, false);
+        }
+    }
+
+    private void record(long execute, long fetch, long rowCount, boolean failed) {
+        // A plain statement that has not executed anything yet has no SQL
+        if (stats != null) {
+            profiler.record(stats, sql, execute, fetch, rowCount, failed);
+        }
+    }
+
+    private static long affected(int[] counts) {
+        long affected = 0;
+        for (int count : counts) {
+            affected += Math.max(0, count);
+        }
+        return affected;
+    }
+
+    private static long affected(long[] counts) {
+        long affected = 0;
+        for (long count : counts) {
+            affected += Math.max(0, count);
+        }
+        return affected;
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        useSql(sql);
+        delegate.addBatch(sql);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        delegate.cancel();
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        delegate.clearBatch();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        delegate.clearWarnings();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        completeOpenExecution();
+        delegate.close();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        delegate.closeOnCompletion();
+    }
+
+    @Override
+    public String enquoteIdentifier(String val, boolean alwaysQuote) throws SQLException {
+        return delegate.enquoteIdentifier(val, alwaysQuote);
+    }
+
+    @Override
+    public String enquoteLiteral(String val) throws SQLException {
+        return delegate.enquoteLiteral(val);
+    }
+
+    @Override
+    public String enquoteNCharLiteral(String val) throws SQLException {
+        return delegate.enquoteNCharLiteral(val);
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            return executed(startedAt, delegate.execute(sql));
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            return executed(startedAt, delegate.execute(sql, columnIndexes));
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            return executed(startedAt, delegate.execute(sql, columnNames));
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            return executed(startedAt, delegate.execute(sql, autoGeneratedKeys));
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        long startedAt = started();
+        try {
+            int[] counts = delegate.executeBatch();
+            finished(startedAt, affected(counts));
+            return counts;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        long startedAt = started();
+        try {
+            long[] counts = delegate.executeLargeBatch();
+            finished(startedAt, affected(counts));
+            return counts;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            long updated = delegate.executeLargeUpdate(sql);
+            finished(startedAt, updated);
+            return updated;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            long updated = delegate.executeLargeUpdate(sql, columnIndexes);
+            finished(startedAt, updated);
+            return updated;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            long updated = delegate.executeLargeUpdate(sql, columnNames);
+            finished(startedAt, updated);
+            return updated;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            long updated = delegate.executeLargeUpdate(sql, autoGeneratedKeys);
+            finished(startedAt, updated);
+            return updated;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            return opened(startedAt, delegate.executeQuery(sql));
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            int updated = delegate.executeUpdate(sql);
+            finished(startedAt, updated);
+            return updated;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            int updated = delegate.executeUpdate(sql, columnIndexes);
+            finished(startedAt, updated);
+            return updated;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            int updated = delegate.executeUpdate(sql, columnNames);
+            finished(startedAt, updated);
+            return updated;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        useSql(sql);
+        long startedAt = started();
+        try {
+            int updated = delegate.executeUpdate(sql, autoGeneratedKeys);
+            finished(startedAt, updated);
+            return updated;
+        } catch (SQLException | RuntimeException e) {
+            failed(startedAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection;
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return delegate.getFetchDirection();
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return delegate.getFetchSize();
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return delegate.getGeneratedKeys();
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        return delegate.getLargeMaxRows();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        return delegate.getLargeUpdateCount();
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return delegate.getMaxFieldSize();
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return delegate.getMaxRows();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        completeOpenExecution();
+        return delegate.getMoreResults();
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        completeOpenExecution();
+        return delegate.getMoreResults(current);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return delegate.getQueryTimeout();
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        if (resultSet != null) {
+            return resultSet;
+        }
+        ResultSet result = delegate.getResultSet();
+        if (result != null && resultPending) {
+            resultPending = false;
+            resultSet = new ProfiledResultSet(result, this);
+            return resultSet;
+        }
+        return result;
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return delegate.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return delegate.getResultSetHoldability();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return delegate.getResultSetType();
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return delegate.getUpdateCount();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return delegate.getWarnings();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return delegate.isCloseOnCompletion();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return delegate.isClosed();
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return delegate.isPoolable();
+    }
+
+    @Override
+    public boolean isSimpleIdentifier(String identifier) throws SQLException {
+        return delegate.isSimpleIdentifier(identifier);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return delegate.isWrapperFor(iface);
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        delegate.setCursorName(name);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        delegate.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        delegate.setFetchDirection(direction);
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        delegate.setFetchSize(rows);
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        delegate.setLargeMaxRows(max);
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        delegate.setMaxFieldSize(max);
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        delegate.setMaxRows(max);
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        delegate.setPoolable(poolable);
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        delegate.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return delegate.unwrap(iface);
+    }
+}
@@ -0,0 +1,11 @@
+package com.createfuture.training.taskmanager.profiling;
+
+import java.time.Instant;
+
+/**
+ * One slow execution: the SQL as sent and the tenant it ran for, which is what is needed to ask
+ * the same shard for its plan. Bound parameter values are not kept.
+ */
+public record SlowStatement(String normalizedSql, String sql, String tenant, Instant at, long totalNanos,
+                            long executeNanos, long fetchNanos, long rows, boolean failed) {
+}
@@ -0,0 +1,89 @@
+package com.createfuture.training.taskmanager.profiling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The {@code capacity} slowest executions seen, in a fixed array of slots that writers update with
+ * compare-and-set: a newcomer replaces the fastest entry, retrying if another writer got there
+ * first. Once the slots are full, {@link #admits(long)} compares against the fastest entry held,
+ * so the common fast statement costs one volatile read and no allocation.
+ */
+final class SlowStatementBuffer {
+
+    private final AtomicReferenceArray<SlowStatement> slots;
+    // Fastest entry held, or 0 while a slot is free. Entries are only ever replaced by slower ones, so
+    // a racing writer can leave it lower than it should be (admitting a few extra candidates), never higher.
+    private volatile long floorNanos;
+
+    SlowStatementBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Slow statement buffer capacity must be positive");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    boolean admits(long totalNanos) {
+        return totalNanos > floorNanos;
+    }
+
+    void offer(SlowStatement candidate) {
+        while (true) {
+            int victim = 0;
+            SlowStatement fastest = null;
+            for (int i = 0; i < slots.length(); i++) {
+                SlowStatement held = slots.get(i);
+                if (held == null) {
+                    victim = i;
+                    fastest = null;
+                    break;
+                }
+                if (fastest == null || held.totalNanos() < fastest.totalNanos()) {
+                    victim = i;
+                    fastest = held;
+                }
+            }
+            if (fastest != null && fastest.totalNanos() >= candidate.totalNanos()) {
+                return;
+            }
+            if (slots.compareAndSet(victim, fastest, candidate)) {
+                floorNanos = floor();
+                return;
+            }
+        }
+    }
+
+    private long floor() {
+        long floor = Long.MAX_VALUE;
+        for (int i = 0; i < slots.length(); i++) {
+            SlowStatement held = slots.get(i);
+            if (held == null) {
+                return 0;
+            }
+            floor = Math.min(floor, held.totalNanos());
+        }
+        return floor;
+    }
+
+    // Slowest first
+    List<SlowStatement> slowest() {
+        List<SlowStatement> held = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            SlowStatement statement = slots.get(i);
+            if (statement != null) {
+                held.add(statement);
+            }
+        }
+        held.sort(Comparator.comparingLong(SlowStatement::totalNanos).reversed());
+        return held;
+    }
+
+    void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+        floorNanos = 0;
+    }
+}
@@ -0,0 +1,87 @@
+package com.createfuture.training.taskmanager.profiling;
+
+import java.util.regex.Pattern;
+
+/**
+ * Reduces SQL to the shape statistics are grouped by: whitespace collapsed, string and numeric
+ * literals replaced by {@code ?}, and lists of placeholders (IN lists, multi-row VALUES) folded to
+ * one entry, so statements that differ only in their values or list lengths count as one.
+ */
+final class SqlNormalizer {
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern REPEATED_ROWS = Pattern.compile("(\\(\\?, \\.\\.\\.\\))(?:\\s*,\\s*\\(\\?, \\.\\.\\.\\))+");
+
+    private SqlNormalizer() {
+    }
+
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (pendingSpace && !out.isEmpty()) {
+                out.append(' ');
+            }
+            pendingSpace = false;
+            if (c == '\'') {
+                i = endOfString(sql, i);
+                out.append('?');
+            } else if (c == '"') {
+                int end = sql.indexOf('"', i + 1);
+                end = end < 0 ? length : end + 1;
+                out.append(sql, i, end);
+                i = end;
+            } else if (Character.isLetter(c) || c == '_') {
+                int end = i + 1;
+                while (end < length && isIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                out.append(sql, i, end);
+                i = end;
+            } else if (Character.isDigit(c)) {
+                // Identifiers are copied whole above, so a digit here starts a number
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        String normalized = out.toString();
+        if (normalized.indexOf('?') < 0) {
+            return normalized;
+        }
+        normalized = PLACEHOLDER_LIST.matcher(normalized).replaceAll("(?, ...)");
+        return REPEATED_ROWS.matcher(normalized).replaceAll("$1, ...");
+    }
+
+    // Index just past the closing quote; '' inside the literal is an escaped quote
+    private static int endOfString(String sql, int open) {
+        int i = open + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
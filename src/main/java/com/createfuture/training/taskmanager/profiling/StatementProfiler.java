@@ -0,0 +1,132 @@
+package com.createfuture.training.taskmanager.profiling;
+
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics per normalized statement and the slowest single executions, fed by
+ * {@link ProfilingDataSource}. A statement's SQL is looked up once when it is prepared; each
+ * execution then only adds to striped counters, and allocates only if it is slow enough to enter
+ * the slow log.
+ */
+public class StatementProfiler {
+
+    // Statements past max-statements are counted together under this key
+    static final String OTHER_STATEMENTS = "(other statements)";
+
+    private final int maxStatements;
+    private final ConcurrentHashMap<String, Stats> byNormalizedSql = new ConcurrentHashMap<>();
+    // SQL exactly as prepared; almost always one of the repositories' constants, so normalizing is skipped
+    private final ConcurrentHashMap<String, Stats> bySql = new ConcurrentHashMap<>();
+    private final SlowStatementBuffer slowest;
+
+    public StatementProfiler(int slowLogSize, int maxStatements) {
+        if (maxStatements < 1) {
+            throw new IllegalArgumentException("Statement profiler needs room for at least one statement");
+        }
+        this.maxStatements = maxStatements;
+        this.slowest = new SlowStatementBuffer(slowLogSize);
+    }
+
+    static final class Stats {
+        final String normalizedSql;
+        final LongAdder executions = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder executeNanos = new LongAdder();
+        final LongAdder fetchNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Stats(String normalizedSql) {
+            this.normalizedSql = normalizedSql;
+        }
+
+        StatementStatistics snapshot() {
+            long count = executions.sum();
+            long execute = executeNanos.sum();
+            long fetch = fetchNanos.sum();
+            return new StatementStatistics(normalizedSql, count, failures.sum(), rows.sum(), millis(execute + fetch),
+                    count == 0 ? 0 : millis(execute + fetch) / count, millis(maxNanos.get()), millis(execute), millis(fetch));
+        }
+    }
+
+    Stats statsFor(String sql) {
+        Stats stats = bySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String normalized = SqlNormalizer.normalize(sql);
+        if (byNormalizedSql.size() < maxStatements) {
+            stats = byNormalizedSql.computeIfAbsent(normalized, Stats::new);
+        } else {
+            stats = byNormalizedSql.get(normalized);
+            if (stats == null) {
+                stats = byNormalizedSql.computeIfAbsent(OTHER_STATEMENTS, Stats::new);
+            }
+        }
+        // SQL built with inline values would otherwise grow this map without bound
+        if (bySql.size() < maxStatements) {
+            bySql.putIfAbsent(sql, stats);
+        }
+        return stats;
+    }
+
+    void record(Stats stats, String sql, long executeNanos, long fetchNanos, long rows, boolean failed) {
+        stats.executions.increment();
+        stats.executeNanos.add(executeNanos);
+        if (fetchNanos > 0) {
+            stats.fetchNanos.add(fetchNanos);
+        }
+        if (rows > 0) {
+            stats.rows.add(rows);
+        }
+        if (failed) {
+            stats.failures.increment();
+        }
+        long totalNanos = executeNanos + fetchNanos;
+        stats.maxNanos.accumulate(totalNanos);
+        if (slowest.admits(totalNanos)) {
+            slowest.offer(new SlowStatement(stats.normalizedSql, sql, TenantContext.current(), Instant.now(),
+                    totalNanos, executeNanos, fetchNanos, rows, failed));
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} statements, those with the most total time first.
+     */
+    public List<StatementStatistics> statistics(int limit) {
+        return byNormalizedSql.values().stream()
+                .map(Stats::snapshot)
+                .sorted(Comparator.comparingDouble(StatementStatistics::totalMs).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Returns the slowest executions held, slowest first.
+     */
+    public List<SlowStatement> slowest() {
+        return slowest.slowest();
+    }
+
+    /**
+     * Drops all statistics and the slow log. Statements prepared before the reset and still
+     * executing report into the discarded totals.
+     */
+    public void reset() {
+        bySql.clear();
+        byNormalizedSql.clear();
+        slowest.clear();
+    }
+
+    static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
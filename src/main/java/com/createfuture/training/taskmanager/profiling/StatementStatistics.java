@@ -0,0 +1,10 @@
+package com.createfuture.training.taskmanager.profiling;
+
+/**
+ * Totals for one normalized statement since start or the last reset. Execute time is the
+ * {@code execute*} call; fetch time runs from there until the result set is closed, so it covers
+ * streaming the rows (H2 runs queries lazily here) and mapping them.
+ */
+public record StatementStatistics(String sql, long executions, long failures, long rows, double totalMs,
+                                  double meanMs, double maxMs, double executeMs, double fetchMs) {
+}
@@ -0,0 +1,56 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.tenant.TaskShards;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cross-tenant reads for operators. This is the only place that queries more than one shard: each
+ * shard is asked in parallel and the results are merged by tenant.
+ */
+@Repository
+@ConditionalOnProperty(name = "tasks.storage", havingValue = "jdbc", matchIfMissing = true)
+public class AdminTaskRepository {
+
+    private static final String LIST_SQL = "SELECT tenant, id, title, done, priority, due_date, version FROM tasks ORDER BY tenant, id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskShards shards;
+
+    public AdminTaskRepository(JdbcTemplate jdbcTemplate, ObjectProvider<TaskShards> shards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards.getIfAvailable();
+    }
+
+    /**
+     * Returns up to {@code limitPerShard} tasks from every shard, grouped by tenant in tenant order.
+     */
+    public Map<String, List<Task>> findAllByTenant(int limitPerShard) {
+        List<Map<String, List<Task>>> perShard = shards == null
+                ? List.of(listShard(jdbcTemplate, limitPerShard))
+                : shards.fanOut(template -> listShard(template, limitPerShard));
+        Map<String, List<Task>> merged = new TreeMap<>();
+        // A tenant lives on exactly one shard, so the maps never share a key
+        perShard.forEach(merged::putAll);
+        return merged;
+    }
+
+    private static Map<String, List<Task>> listShard(JdbcTemplate template, int limit) {
+        Map<String, List<Task>> tasks = new TreeMap<>();
+        template.query(LIST_SQL, (RowCallbackHandler) rs -> tasks
+                .computeIfAbsent(rs.getString(1), tenant -> new ArrayList<>())
+                .add(new Task(rs.getLong(2), rs.getString(3), rs.getBoolean(4), rs.getInt(5),
+                        rs.getObject(6, LocalDate.class), rs.getLong(7))), limit);
+        return tasks;
+    }
+}
@@ -0,0 +1,287 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free in-memory engine for {@code tasks.storage=memory}. Tasks live in a
+ * {@link ConcurrentSkipListMap} keyed by id, which keeps keyset paging and id-ordered scans cheap.
+ * Stored tasks are never mutated; every change swaps in a new instance.
+ * {@code openIds} is a secondary index of not-done ids, and {@code openByRank} holds the open
+ * tasks in {@link Task#BY_RANK} order so top-N reads stop after N entries. Readers check each
+ * entry against {@code tasks}, so an entry that is briefly stale is harmless; writers re-read
+ * {@code tasks} after updating an index, so an open task is never left out of one.
+ */
+@Repository
+@ConditionalOnProperty(name = "tasks.storage", havingValue = "memory")
+@Timed(value = "tasks.repository", histogram = true, percentiles = {0.5, 0.95, 0.99})
+public class InMemoryTaskRepository implements TaskRepository {
+
+    private final ConcurrentSkipListMap<Long, Task> tasks = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Long> openIds = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<Task> openByRank = new ConcurrentSkipListSet<>(Task.BY_RANK);
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public Task addTask(Task draft) {
+        Task task = new Task(sequence.incrementAndGet(), draft.getTitle(), false, draft.getPriority(), draft.getDueDate());
+        tasks.put(task.getId(), task);
+        openIds.add(task.getId());
+        openByRank.add(task);
+        return task;
+    }
+
+    @Override
+    public List<Task> addTasks(List<String> titles) {
+        List<Task> created = new ArrayList<>(titles.size());
+        for (String title : titles) {
+            created.add(addTask(title));
+        }
+        return created;
+    }
+
+    @Override
+    public List<Task> findAll() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public void forEach(Boolean done, Consumer<Task> action) {
+        for (Task task : tasks.values()) {
+            if (done == null || task.isDone() == done) {
+                action.accept(task);
+            }
+        }
+    }
+
+    @Override
+    public List<Task> findOpen() {
+        return findOpenAfter(0L, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public TaskColumns findOpenColumns() {
+        TaskColumns.Builder columns = TaskColumns.builder(1024);
+        for (Long id : openIds) {
+            Task task = tasks.get(id);
+            if (task != null && !task.isDone()) {
+                columns.add(task);
+            }
+        }
+        return columns.build();
+    }
+
+    @Override
+    public List<Task> findOpenAfter(long afterId, int limit) {
+        List<Task> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Long id : openIds.tailSet(afterId, false)) {
+            if (page.size() >= limit) {
+                break;
+            }
+            Task task = tasks.get(id);
+            if (task == null) {
+                openIds.remove(id);
+            } else if (!task.isDone()) {
+                page.add(task);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<Long> findIds(Boolean done, String titlePrefix, long afterId, int limit) {
+        // Open tasks have their own index; anything else walks the main map
+        Iterable<Long> candidates = Boolean.FALSE.equals(done)
+                ? openIds.tailSet(afterId, false)
+                : tasks.tailMap(afterId, false).keySet();
+        List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+        for (Long id : candidates) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            Task task = tasks.get(id);
+            if (task != null
+                    && (done == null || task.isDone() == done)
+                    && (titlePrefix == null || (task.getTitle() != null && task.getTitle().startsWith(titlePrefix)))) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Task> findTopN(int n) {
+        List<Task> top = new ArrayList<>(Math.min(n, 1024));
+        for (Task ranked : openByRank) {
+            if (top.size() >= n) {
+                break;
+            }
+            Task task = tasks.get(ranked.getId());
+            if (task == null || Task.BY_RANK.compare(task, ranked) != 0) {
+                // Deleted, or re-ranked and already indexed under its new rank
+                openByRank.remove(ranked);
+            } else if (!task.isDone()) {
+                top.add(task);
+            }
+        }
+        return top;
+    }
+
+    @Override
+    public Task findById(Long id) {
+        return tasks.get(id);
+    }
+
+    @Override
+    public int markDoneById(Long id) {
+        Task updated = tasks.computeIfPresent(id, (key, task) -> task.withDone(true).withVersion(task.getVersion() + 1));
+        indexOpenId(id);
+        if (updated == null) {
+            return 0;
+        }
+        openByRank.remove(updated);
+        return 1;
+    }
+
+    @Override
+    public int markDoneByIds(Collection<Long> ids) {
+        int updated = 0;
+        for (Long id : ids) {
+            updated += markDoneById(id);
+        }
+        return updated;
+    }
+
+    @Override
+    public int updateTask(Task task) {
+        Task[] replaced = new Task[1];
+        Task stored = tasks.computeIfPresent(task.getId(), (id, previous) -> {
+            replaced[0] = previous;
+            return new Task(id, task.getTitle(), task.isDone(), task.getPriority(), task.getDueDate(),
+                    previous.getVersion() + 1);
+        });
+        if (stored == null) {
+            return 0;
+        }
+        index(replaced[0], stored);
+        return 1;
+    }
+
+    // The version is compared inside computeIfPresent, so two writers holding the same version cannot
+    // both win. The map may retry the function under contention, hence replaced is cleared each time.
+    @Override
+    public Task updateTaskIfVersion(Long id, Task changes, long expectedVersion) {
+        Task[] replaced = new Task[1];
+        Task stored = tasks.computeIfPresent(id, (key, previous) -> {
+            replaced[0] = null;
+            if (previous.getVersion() != expectedVersion) {
+                return previous;
+            }
+            replaced[0] = previous;
+            return new Task(key, changes.getTitle(), previous.isDone(), changes.getPriority(), changes.getDueDate(),
+                    expectedVersion + 1);
+        });
+        if (replaced[0] == null) {
+            return null;
+        }
+        index(replaced[0], stored);
+        return stored;
+    }
+
+    @Override
+    public int deleteById(Long id) {
+        Task removed = tasks.remove(id);
+        indexOpenId(id);
+        if (removed == null) {
+            return 0;
+        }
+        openByRank.remove(removed);
+        return 1;
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        int deleted = 0;
+        for (Long id : ids) {
+            deleted += deleteById(id);
+        }
+        return deleted;
+    }
+
+    @Override
+    public void reset() {
+        tasks.clear();
+        openIds.clear();
+        openByRank.clear();
+    }
+
+    /**
+     * Moves a replaced task's secondary index entries. The new rank is added before the old one is
+     * removed, and the stored task is re-read at the end, so a concurrent change to the same task
+     * cannot leave it out of {@code openByRank}.
+     */
+    private void index(Task previous, Task task) {
+        indexOpenId(task.getId());
+        if (!task.isDone()) {
+            openByRank.add(task);
+        }
+        if (previous != null && (task.isDone() || Task.BY_RANK.compare(previous, task) != 0)) {
+            openByRank.remove(previous);
+        }
+        Task current = tasks.get(task.getId());
+        if (current != null && !current.isDone()) {
+            openByRank.add(current);
+        }
+    }
+
+    /**
+     * Makes {@code openIds} agree with what {@code tasks} holds for the id now. Applied until a
+     * re-read agrees with it: a writer that changed the task in between may have applied its own
+     * update to {@code openIds} before this one, and would otherwise be undone by it.
+     */
+    private void indexOpenId(Long id) {
+        boolean open;
+        do {
+            open = isOpen(tasks.get(id));
+            if (open) {
+                openIds.add(id);
+            } else {
+                openIds.remove(id);
+            }
+        } while (open != isOpen(tasks.get(id)));
+    }
+
+    private static boolean isOpen(Task task) {
+        return task != null && !task.isDone();
+    }
+
+    // Recovery hook for WalTaskRepository: inserts or replaces a task under its logged id
+    void restore(Task task) {
+        index(tasks.put(task.getId(), task), task);
+        advanceSequence(task.getId());
+    }
+
+    // Ids are never reused, even after the task holding the highest one was deleted
+    void advanceSequence(long lastId) {
+        sequence.accumulateAndGet(lastId, Math::max);
+    }
+
+    long lastId() {
+        return sequence.get();
+    }
+
+    int size() {
+        return tasks.size();
+    }
+}
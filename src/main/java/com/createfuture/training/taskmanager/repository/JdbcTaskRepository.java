@@ -0,0 +1,395 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.CacheConfig;
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskBulkResult.Outcome;
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Shared-table engine: every row carries its tenant and every statement is scoped to
+ * {@link TenantContext#current()}, so a tenant only ever sees, and locks, its own rows. With
+ * sharding enabled the injected {@link JdbcTemplate} already points at the tenant's shard.
+ */
+@Repository
+@ConditionalOnProperty(name = "tasks.storage", havingValue = "jdbc", matchIfMissing = true)
+@Timed(value = "tasks.repository", histogram = true, percentiles = {0.5, 0.95, 0.99})
+public class JdbcTaskRepository implements TaskRepository {
+
+    static final int BATCH_SIZE = 1000;
+    static final int EXPORT_FETCH_SIZE = 500;
+    // H2 only reads an index in order when the ORDER BY starts with its leading columns, so queries
+    // over open tasks order by tenant and done too. Without that every page sorts all matching rows.
+    // Keyset page over idx_tasks_tenant_done_id: cost depends on the page size, not the table size
+    static final String OPEN_AFTER_SQL = "SELECT * FROM tasks WHERE tenant = ? AND done = false AND id > ? "
+            + "ORDER BY tenant, done, id LIMIT ?";
+    // Walks idx_tasks_tenant_rank and stops after n rows
+    static final String TOP_N_SQL = "SELECT * FROM tasks WHERE tenant = ? AND done = false "
+            + "ORDER BY tenant, done, priority DESC, due_date NULLS LAST, id LIMIT ?";
+    // Done tasks in the hot table and in the archive, each a keyset page over its (tenant, ..., id) index
+    static final String DONE_AFTER_SQL = "SELECT * FROM tasks WHERE tenant = ? AND done = true AND id > ? "
+            + "ORDER BY tenant, done, id LIMIT ?";
+    static final String ARCHIVED_AFTER_SQL = "SELECT * FROM tasks_archive WHERE tenant = ? AND id > ? "
+            + "ORDER BY tenant, id LIMIT ?";
+    // done_at keeps the first time a task was marked done, which is what the archiver ages it by
+    private static final String MARK_DONE_SQL = "UPDATE tasks SET done = true, done_at = COALESCE(done_at, CURRENT_TIMESTAMP), "
+            + "version = version + 1 WHERE id = ? AND tenant = ?";
+    // Set-based writes of a chunk of ids for markDoneEach/deleteEach. H2 scans the whole tenant for
+    // id IN (SELECT ... FROM UNNEST(?)) or id = ANY(?), but joins a MERGE source row by row on the index
+    private static final String MARK_DONE_EACH_SQL = "MERGE INTO tasks t USING UNNEST(?) AS u(id) "
+            + "ON t.id = u.id AND t.tenant = ? AND t.done = false WHEN MATCHED THEN UPDATE SET done = true, "
+            + "done_at = COALESCE(t.done_at, CURRENT_TIMESTAMP), version = t.version + 1";
+    private static final String DELETE_EACH_SQL = "MERGE INTO tasks t USING UNNEST(?) AS u(id) "
+            + "ON t.id = u.id AND t.tenant = ? WHEN MATCHED THEN DELETE";
+    // One round trip: the version check, the write and the read of the stored row. A stale version
+    // or a missing task simply matches no row.
+    static final String UPDATE_IF_VERSION_SQL = "SELECT * FROM FINAL TABLE (UPDATE tasks SET title = ?, priority = ?, "
+            + "due_date = ?, version = version + 1 WHERE id = ? AND tenant = ? AND version = ?)";
+    private static final String INSERT_SQL = "INSERT INTO tasks (done, title, priority, due_date, tenant) VALUES (false, ?, ?, ?, ?)";
+    private static final PreparedStatementCreator INSERT_STATEMENT =
+            connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"});
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcTaskRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private final RowMapper<Task> taskMapper = (rs, rowNum) -> new Task(
+            rs.getLong("id"),
+            rs.getString("title"),
+            rs.getBoolean("done"),
+            rs.getInt("priority"),
+            rs.getObject("due_date", LocalDate.class),
+            rs.getLong("version")
+    );
+
+    @Override
+    public Task addTask(Task draft) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = INSERT_STATEMENT.createPreparedStatement(connection);
+            setInsertValues(ps, draft.getTitle(), draft.getPriority(), draft.getDueDate(), TenantContext.current());
+            return ps;
+        }, keyHolder);
+        return new Task(keyHolder.getKeyAs(Long.class), draft.getTitle(), false, draft.getPriority(), draft.getDueDate());
+    }
+
+    private static void setInsertValues(PreparedStatement ps, String title, int priority, LocalDate dueDate,
+                                        String tenant) throws SQLException {
+        ps.setString(1, title);
+        ps.setInt(2, priority);
+        ps.setObject(3, dueDate);
+        ps.setString(4, tenant);
+    }
+
+    // Callers wrap this in a transaction so all chunks commit together
+    @Override
+    public List<Task> addTasks(List<String> titles) {
+        List<Task> created = new ArrayList<>(titles.size());
+        String tenant = TenantContext.current();
+        for (int from = 0; from < titles.size(); from += BATCH_SIZE) {
+            List<String> chunk = titles.subList(from, Math.min(from + BATCH_SIZE, titles.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(INSERT_STATEMENT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setInsertValues(ps, chunk.get(i), 0, null, tenant);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return chunk.size();
+                }
+            }, keyHolder);
+
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < chunk.size(); i++) {
+                Number id = (Number) keys.get(i).values().iterator().next();
+                created.add(new Task(id.longValue(), chunk.get(i)));
+            }
+        }
+        return created;
+    }
+
+    private final RowMapper<Task> archivedTaskMapper = (rs, rowNum) -> new Task(
+            rs.getLong("id"),
+            rs.getString("title"),
+            true,
+            rs.getInt("priority"),
+            rs.getObject("due_date", LocalDate.class),
+            rs.getLong("version")
+    );
+
+    @Override
+    public List<Task> findAll() {
+        return jdbcTemplate.query("SELECT * FROM tasks WHERE tenant = ?", taskMapper, TenantContext.current());
+    }
+
+    // Forward-only cursor with a fixed fetch size, so memory stays flat however many rows match
+    @Override
+    public void forEach(Boolean done, Consumer<Task> action) {
+        String sql = done == null
+                ? "SELECT * FROM tasks WHERE tenant = ? ORDER BY id"
+                : "SELECT * FROM tasks WHERE tenant = ? AND done = ? ORDER BY tenant, done, id";
+        String tenant = TenantContext.current();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            ps.setString(1, tenant);
+            if (done != null) {
+                ps.setBoolean(2, done);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(taskMapper.mapRow(rs, rs.getRow())));
+    }
+
+    @Override
+    public List<Task> findOpen() {
+        return jdbcTemplate.query("SELECT * FROM tasks WHERE tenant = ? AND done = false ORDER BY tenant, done, id",
+                taskMapper, TenantContext.current());
+    }
+
+    // Reads columns straight into the compact form: no Task or boxed id per row. The count is an
+    // index-only scan of idx_tasks_tenant_done_id and lets the builder allocate its arrays once.
+    @Override
+    public TaskColumns findOpenColumns() {
+        String tenant = TenantContext.current();
+        Integer open = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tasks WHERE tenant = ? AND done = false",
+                Integer.class, tenant);
+        TaskColumns.Builder columns = TaskColumns.builder(open == null ? 0 : open);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT id, title, priority, due_date, version FROM tasks WHERE tenant = ? AND done = false ORDER BY tenant, done, id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            ps.setString(1, tenant);
+            return ps;
+        }, (RowCallbackHandler) rs -> columns.add(rs.getLong(1), rs.getString(2), false,
+                rs.getInt(3), rs.getObject(4, LocalDate.class), rs.getLong(5)));
+        return columns.build();
+    }
+
+    @Override
+    public List<Task> findOpenAfter(long afterId, int limit) {
+        return jdbcTemplate.query(OPEN_AFTER_SQL, taskMapper, TenantContext.current(), afterId, limit);
+    }
+
+    // Keyset over the filtered ids; with only a done filter this stays on idx_tasks_tenant_done_id
+    @Override
+    public List<Long> findIds(Boolean done, String titlePrefix, long afterId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT id FROM tasks WHERE tenant = ? AND ");
+        List<Object> args = new ArrayList<>(5);
+        args.add(TenantContext.current());
+        if (done != null) {
+            sql.append("done = ? AND ");
+            args.add(done);
+        }
+        sql.append("id > ?");
+        args.add(afterId);
+        if (titlePrefix != null) {
+            sql.append(" AND title LIKE ? ESCAPE '\\'");
+            args.add(escapeLike(titlePrefix) + "%");
+        }
+        sql.append(done != null ? " ORDER BY tenant, done, id LIMIT ?" : " ORDER BY id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, key = CacheConfig.TASK_KEY)
+    public int deleteById(Long id) {
+        return jdbcTemplate.update("DELETE FROM tasks WHERE id = ? AND tenant = ?", id, TenantContext.current());
+    }
+
+    @Override
+    public List<Task> findTopN(int n) {
+        return jdbcTemplate.query(TOP_N_SQL, taskMapper, TenantContext.current(), n);
+    }
+
+    /**
+     * Reads the task table before the archive: a task archived in between then shows up in both
+     * pages and is counted once, where the other order could miss it.
+     */
+    @Override
+    public List<Task> findDoneAfter(long afterId, int limit) {
+        String tenant = TenantContext.current();
+        List<Task> hot = jdbcTemplate.query(DONE_AFTER_SQL, taskMapper, tenant, afterId, limit);
+        List<Task> archived = jdbcTemplate.query(ARCHIVED_AFTER_SQL, archivedTaskMapper, tenant, afterId, limit);
+        Map<Long, Task> merged = new TreeMap<>();
+        hot.forEach(task -> merged.put(task.getId(), task));
+        archived.forEach(task -> merged.putIfAbsent(task.getId(), task));
+        return merged.values().stream().limit(limit).toList();
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, allEntries = true)
+    public void reset() {
+        String tenant = TenantContext.current();
+        jdbcTemplate.update("DELETE FROM tasks WHERE tenant = ?", tenant);
+        jdbcTemplate.update("DELETE FROM tasks_archive WHERE tenant = ?", tenant);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.TASKS_CACHE, key = CacheConfig.TASK_KEY, unless = "#result == null")
+    public Task findById(Long id) {
+        String sql = "SELECT * FROM tasks WHERE id = ? AND tenant = ?";
+        List<Task> tasks = jdbcTemplate.query(sql, taskMapper, id, TenantContext.current());
+        return tasks.isEmpty() ? null : tasks.get(0);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, key = CacheConfig.TASK_KEY)
+    public int markDoneById(Long id) {
+        return jdbcTemplate.update(MARK_DONE_SQL, id, TenantContext.current());
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, allEntries = true)
+    public int markDoneByIds(Collection<Long> ids) {
+        return sumOfBatch(jdbcTemplate.batchUpdate(MARK_DONE_SQL, ids, BATCH_SIZE, tenantScoped()));
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, allEntries = true)
+    public int deleteByIds(Collection<Long> ids) {
+        return sumOfBatch(jdbcTemplate.batchUpdate("DELETE FROM tasks WHERE id = ? AND tenant = ?",
+                ids, BATCH_SIZE, tenantScoped()));
+    }
+
+    /**
+     * Per chunk of {@link #BATCH_SIZE} ids: one locking join against the id array classifies every
+     * id, then one statement writes all the rows that change. Callers wrap this in a transaction, so
+     * the row locks hold until every chunk has been applied.
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, allEntries = true)
+    public Map<Long, Outcome> markDoneEach(Collection<Long> ids) {
+        Map<Long, Outcome> outcomes = notFound(ids);
+        forEachChunk(outcomes.keySet(), chunk -> {
+            List<Long> open = new ArrayList<>(chunk.size());
+            lockChunk(chunk, rs -> {
+                long id = rs.getLong(1);
+                if (rs.getBoolean(2)) {
+                    outcomes.put(id, Outcome.ALREADY_DONE);
+                } else {
+                    outcomes.put(id, Outcome.DONE);
+                    open.add(id);
+                }
+            });
+            mergeChunk(MARK_DONE_EACH_SQL, open);
+        });
+        return outcomes;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, allEntries = true)
+    public Map<Long, Outcome> deleteEach(Collection<Long> ids) {
+        Map<Long, Outcome> outcomes = notFound(ids);
+        forEachChunk(outcomes.keySet(), chunk -> {
+            List<Long> found = new ArrayList<>(chunk.size());
+            lockChunk(chunk, rs -> {
+                outcomes.put(rs.getLong(1), Outcome.DELETED);
+                found.add(rs.getLong(1));
+            });
+            mergeChunk(DELETE_EACH_SQL, found);
+        });
+        return outcomes;
+    }
+
+    // H2 checks an IN (?, ?, ...) list linearly for every row, so the ids are joined as one array instead
+    private void lockChunk(List<Long> chunk, RowCallbackHandler handler) {
+        String tenant = TenantContext.current();
+        jdbcTemplate.query("SELECT t.id, t.done FROM UNNEST(?) AS u(id) JOIN tasks t ON t.id = u.id WHERE t.tenant = ? FOR UPDATE",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("BIGINT", chunk.toArray()));
+                    ps.setString(2, tenant);
+                }, handler);
+    }
+
+    private void mergeChunk(String sql, List<Long> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        String tenant = TenantContext.current();
+        jdbcTemplate.update(sql, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("BIGINT", chunk.toArray()));
+            ps.setString(2, tenant);
+        });
+    }
+
+    private static ParameterizedPreparedStatementSetter<Long> tenantScoped() {
+        String tenant = TenantContext.current();
+        return (ps, id) -> {
+            ps.setLong(1, id);
+            ps.setString(2, tenant);
+        };
+    }
+
+    // One NOT_FOUND entry per distinct id, in input order, for the chunks to overwrite
+    private static Map<Long, Outcome> notFound(Collection<Long> ids) {
+        Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+        for (Long id : ids) {
+            outcomes.put(id, Outcome.NOT_FOUND);
+        }
+        return outcomes;
+    }
+
+    private static void forEachChunk(Collection<Long> ids, Consumer<List<Long>> action) {
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += BATCH_SIZE) {
+            action.accept(all.subList(from, Math.min(from + BATCH_SIZE, all.size())));
+        }
+    }
+
+    private static int sumOfBatch(int[][] counts) {
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).sum();
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, key = CacheConfig.UPDATED_TASK_KEY)
+    public int updateTask(Task task) {
+        String sql = "UPDATE tasks SET title = ?, done = ?, priority = ?, due_date = ?, "
+                + "done_at = CASE WHEN ? THEN COALESCE(done_at, CURRENT_TIMESTAMP) END, version = version + 1 "
+                + "WHERE id = ? AND tenant = ?";
+        return jdbcTemplate.update(sql, task.getTitle(), task.isDone(), task.getPriority(), task.getDueDate(),
+                task.isDone(), task.getId(), TenantContext.current());
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, key = CacheConfig.TASK_KEY)
+    public Task updateTaskIfVersion(Long id, Task changes, long expectedVersion) {
+        List<Task> updated = jdbcTemplate.query(UPDATE_IF_VERSION_SQL, taskMapper, changes.getTitle(),
+                changes.getPriority(), changes.getDueDate(), id, TenantContext.current(), expectedVersion);
+        return updated.isEmpty() ? null : updated.get(0);
+    }
+}
@@ -0,0 +1,197 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.CacheConfig;
+import com.createfuture.training.taskmanager.service.TaskEvent;
+import com.createfuture.training.taskmanager.tenant.TaskShards;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Moves done tasks older than {@code tasks.archive.min-age} from {@code tasks} to
+ * {@code tasks_archive}, on every shard and for every tenant. Each batch is one short transaction
+ * that locks only the rows it moves, and batches are separated by a pause, so foreground writes
+ * never wait behind more than one batch. Archived tasks leave the open lists, lookups and search
+ * ({@link TaskEvent.Type#ARCHIVED}); {@link TaskRepository#findDoneAfter(long, int)} still reads them.
+ */
+@Component
+@ConditionalOnExpression("${tasks.archive.enabled:true} and '${tasks.storage:jdbc}' == 'jdbc'")
+public class TaskArchiver implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskArchiver.class);
+
+    // Walks idx_tasks_done_at from the oldest; only done tasks have a done_at. Not FOR UPDATE: H2 then
+    // locks every row in the range before applying the LIMIT, which takes seconds on a large backlog.
+    static final String OLDEST_DONE_SQL = "SELECT id FROM tasks WHERE done_at < ? ORDER BY done_at LIMIT ?";
+    // Locks the batch by primary key and drops any task reopened since it was picked
+    private static final String LOCK_SQL = "SELECT t.id, t.tenant FROM UNNEST(?) AS u(id) JOIN tasks t ON t.id = u.id "
+            + "WHERE t.done_at < ? FOR UPDATE";
+    private static final String COPY_SQL = "INSERT INTO tasks_archive (id, tenant, title, priority, due_date, done_at, version) "
+            + "SELECT t.id, t.tenant, t.title, t.priority, t.due_date, t.done_at, t.version "
+            + "FROM UNNEST(?) AS u(id) JOIN tasks t ON t.id = u.id";
+    private static final String DELETE_SQL = "DELETE FROM tasks WHERE id = ?";
+
+    private record Shard(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+    }
+
+    private final List<Shard> shards;
+    private final Duration minAge;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache taskCache; // null when nothing caches tasks
+    private final Counter archived;
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public TaskArchiver(DataSource dataSource,
+                        ObjectProvider<TaskShards> taskShards,
+                        ObjectProvider<CacheManager> cacheManager,
+                        ApplicationEventPublisher eventPublisher,
+                        MeterRegistry registry,
+                        @Value("${tasks.archive.min-age:30d}") Duration minAge,
+                        @Value("${tasks.archive.interval:10m}") Duration interval,
+                        @Value("${tasks.archive.batch-size:500}") int batchSize,
+                        @Value("${tasks.archive.batch-pause:50ms}") Duration batchPause) {
+        this(shardsOf(dataSource, taskShards.getIfAvailable()), minAge, interval, batchSize, batchPause,
+                eventPublisher, cacheOf(cacheManager.getIfAvailable()), registry);
+    }
+
+    public TaskArchiver(List<DataSource> dataSources, Duration minAge, Duration interval, int batchSize,
+                        Duration batchPause, ApplicationEventPublisher eventPublisher, Cache taskCache,
+                        MeterRegistry registry) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Archive batch size must be positive");
+        }
+        this.shards = dataSources.stream()
+                .map(source -> new Shard(new JdbcTemplate(source), new TransactionTemplate(new DataSourceTransactionManager(source))))
+                .toList();
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.eventPublisher = eventPublisher;
+        this.taskCache = taskCache;
+        this.archived = registry.counter("tasks.archive.archived");
+        if (interval.isZero()) {
+            this.scheduler = null;
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("task-archiver").daemon().factory());
+            this.scheduler.scheduleWithFixedDelay(this::archiveOldTasks,
+                    interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // With sharding the injected DataSource routes by tenant, so the archiver goes to each shard directly
+    private static List<DataSource> shardsOf(DataSource dataSource, TaskShards taskShards) {
+        return taskShards == null
+                ? List.of(dataSource)
+                : IntStream.range(0, taskShards.size()).mapToObj(taskShards::dataSource).toList();
+    }
+
+    private static Cache cacheOf(CacheManager cacheManager) {
+        return cacheManager == null ? null : cacheManager.getCache(CacheConfig.TASKS_CACHE);
+    }
+
+    /**
+     * Archives every task that was marked done before {@code cutoff} and returns how many moved.
+     * Stops early, between batches, if the calling thread is interrupted.
+     */
+    public long archiveDoneBefore(Instant cutoff) {
+        long moved = 0;
+        for (Shard shard : shards) {
+            List<Long> candidates;
+            do {
+                candidates = shard.jdbcTemplate().queryForList(OLDEST_DONE_SQL, Long.class, cutoff, batchSize);
+                if (!candidates.isEmpty()) {
+                    moved += archiveBatch(shard, candidates, cutoff);
+                }
+            } while (candidates.size() == batchSize && pause());
+        }
+        return moved;
+    }
+
+    private int archiveBatch(Shard shard, List<Long> candidates, Instant cutoff) {
+        Map<Long, String> tenants = shard.transactionTemplate().execute(status -> {
+            Map<Long, String> batch = new LinkedHashMap<>();
+            shard.jdbcTemplate().query(LOCK_SQL, ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("BIGINT", candidates.toArray()));
+                ps.setObject(2, cutoff);
+            }, (RowCallbackHandler) rs -> batch.put(rs.getLong(1), rs.getString(2)));
+            if (batch.isEmpty()) {
+                return batch;
+            }
+            Object[] ids = batch.keySet().toArray();
+            shard.jdbcTemplate().update(COPY_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("BIGINT", ids)));
+            shard.jdbcTemplate().batchUpdate(DELETE_SQL, List.copyOf(batch.keySet()), batchSize,
+                    (ps, id) -> ps.setLong(1, id));
+            // Published inside the transaction, so listeners run once the move has committed
+            batch.forEach((id, tenant) -> TenantContext.run(tenant,
+                    () -> eventPublisher.publishEvent(TaskEvent.archived(id))));
+            return batch;
+        });
+        // Evicted after the commit: before it, a lookup could cache the task again from the hot table
+        if (taskCache != null) {
+            tenants.forEach((id, tenant) -> TenantContext.run(tenant, () -> taskCache.evict(TenantContext.cacheKey(id))));
+        }
+        archived.increment(tenants.size());
+        return tenants.size();
+    }
+
+    // Leaves the connections and row locks to foreground writes for a while
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void archiveOldTasks() {
+        try {
+            long started = System.nanoTime();
+            long moved = archiveDoneBefore(Instant.now().minus(minAge));
+            if (moved > 0) {
+                log.info("Archived {} done tasks older than {} in {} ms", moved, minAge,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; whatever is left is picked up next time
+            log.error("Task archiving failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
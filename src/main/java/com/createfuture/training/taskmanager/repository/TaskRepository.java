@@ -1,72 +1,119 @@
 package com.createfuture.training.taskmanager.repository;
 
 import com.createfuture.training.taskmanager.model.Task;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
-import org.springframework.stereotype.Repository;
+import com.createfuture.training.taskmanager.model.TaskBulkResult.Outcome;
+import com.createfuture.training.taskmanager.model.TaskColumns;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
-@Repository
-public class TaskRepository {
+/**
+ * Storage SPI for tasks. The engine is chosen with {@code tasks.storage}: {@code jdbc} (default)
+ * {@code memory} or {@code wal}. Every engine must pass {@code TaskRepositoryContractTest}.
+ */
+public interface TaskRepository {
 
-    private final JdbcTemplate jdbcTemplate;
+    // Stores a new open task with the draft's title, priority and due date; the draft's id is ignored
+    Task addTask(Task draft);
 
-    public TaskRepository(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+    default Task addTask(String title) {
+        return addTask(new Task(title));
     }
 
-    private final RowMapper<Task> taskMapper = (rs, rowNum) -> new Task(
-            rs.getLong("id"),
-            rs.getString("title"),
-            rs.getBoolean("done")
-    );
+    List<Task> addTasks(List<String> titles);
 
-    public Task addTask(String title) {
-        String sql = "INSERT INTO tasks (done, title) VALUES (false, '" + title + "')";
-        jdbcTemplate.execute(sql);
-        return getLastInsertedTaskByTitle(title);
+    List<Task> findAll();
+
+    // Visits tasks in id order without building a list; done == null means all tasks
+    void forEach(Boolean done, Consumer<Task> action);
+
+    List<Task> findOpen();
+
+    // Same rows as findOpen in the compact bulk form; engines that already hold Task objects can keep this default
+    default TaskColumns findOpenColumns() {
+        TaskColumns.Builder columns = TaskColumns.builder(1024);
+        forEach(false, columns::add);
+        return columns.build();
     }
 
-    public Task getLastInsertedTaskByTitle(String title) {
-        String sql = "SELECT * FROM tasks WHERE title = ? ORDER BY id DESC LIMIT 1";
-        List<Task> tasks = jdbcTemplate.query(sql, taskMapper, title);
-        if (tasks.isEmpty()) {
-            return null;
+    List<Task> findOpenAfter(long afterId, int limit);
+
+    // Ids after afterId in id order, filtered by done flag and title prefix; a null filter matches every task
+    List<Long> findIds(Boolean done, String titlePrefix, long afterId, int limit);
+
+    /**
+     * Done tasks after {@code afterId} in id order, including any the archiver has moved out of the
+     * hot table. Engines without an archive read them like any other task.
+     */
+    default List<Task> findDoneAfter(long afterId, int limit) {
+        List<Task> tasks = new ArrayList<>();
+        for (Long id : findIds(true, null, afterId, limit)) {
+            Task task = findById(id);
+            if (task != null) {
+                tasks.add(task);
+            }
         }
-        return tasks.get(0);
+        return tasks;
     }
 
-    public List<Task> findAll() {
-        return jdbcTemplate.query("SELECT * FROM tasks", taskMapper);
-    }
+    // The n highest-ranked open tasks in Task.BY_RANK order, without looking at every open task
+    List<Task> findTopN(int n);
 
-    public int deleteById(Long id) {
-        return jdbcTemplate.update("DELETE FROM tasks WHERE id = ?", id);
-    }
+    Task findById(Long id);
 
-    public List<Task> findTopN(int n) {
-        String sql = "SELECT * FROM tasks LIMIT ?";
-        return jdbcTemplate.query(sql, taskMapper, n);
-    }
+    int markDoneById(Long id);
 
-    public void reset() {
-        jdbcTemplate.execute("DELETE FROM tasks");
-    }
+    int markDoneByIds(Collection<Long> ids);
 
-    public Task findById(Long id) {
-        String sql = "SELECT * FROM tasks WHERE id = ?";
-        List<Task> tasks = jdbcTemplate.query(sql, taskMapper, id);
-        return tasks.isEmpty() ? null : tasks.get(0);
-    }
+    // Overwrites every field but the id and bumps the version, whatever version is stored
+    int updateTask(Task task);
+
+    /**
+     * Replaces the title, priority and due date and bumps the version, but only if the stored task
+     * is still at {@code expectedVersion}. Returns the task as stored, or null when it is missing
+     * or has moved on; the check and the write are one atomic step.
+     */
+    Task updateTaskIfVersion(Long id, Task changes, long expectedVersion);
+
+    int deleteById(Long id);
 
-    public int markDoneById(Long id) {
-        String sql = "UPDATE tasks SET done = ? WHERE id = ?";
-        return jdbcTemplate.update(sql, true, id);
+    int deleteByIds(Collection<Long> ids);
+
+    /**
+     * Marks the tasks done and reports each distinct id as {@code DONE}, {@code ALREADY_DONE} or
+     * {@code NOT_FOUND}, in the order given. The default checks and writes one id at a time.
+     */
+    default Map<Long, Outcome> markDoneEach(Collection<Long> ids) {
+        Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (!outcomes.containsKey(id)) {
+                Task task = findById(id);
+                if (task == null) {
+                    outcomes.put(id, Outcome.NOT_FOUND);
+                } else if (task.isDone()) {
+                    outcomes.put(id, Outcome.ALREADY_DONE);
+                } else {
+                    outcomes.put(id, markDoneById(id) == 1 ? Outcome.DONE : Outcome.NOT_FOUND);
+                }
+            }
+        }
+        return outcomes;
     }
 
-    public int updateTask(Task task) {
-        String sql = "UPDATE tasks SET title = ?, done = ? WHERE id = ?";
-        return jdbcTemplate.update(sql, task.getTitle(), task.isDone(), task.getId());
+    // Deletes the tasks and reports each distinct id as DELETED or NOT_FOUND, in the order given
+    default Map<Long, Outcome> deleteEach(Collection<Long> ids) {
+        Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (!outcomes.containsKey(id)) {
+                outcomes.put(id, deleteById(id) == 1 ? Outcome.DELETED : Outcome.NOT_FOUND);
+            }
+        }
+        return outcomes;
     }
+
+    void reset();
 }
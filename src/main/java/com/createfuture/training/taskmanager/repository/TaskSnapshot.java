@@ -0,0 +1,187 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of an {@link InMemoryTaskRepository}. {@code snapshot-N.bin} holds every task
+ * as of the moment log segment {@code N} was started, so recovery loads it and replays segments
+ * {@code N} and later. The file is written under a temporary name, forced, then renamed, so a
+ * snapshot with the final name is always complete; a trailing CRC-32C guards against disk faults.
+ */
+final class TaskSnapshot {
+
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})\\.bin");
+    private static final int MAGIC = 0x54534e50;
+    private static final byte VERSION = 1;
+    private static final byte ENTRY = 1;
+    private static final byte END = 0;
+
+    private TaskSnapshot() {
+    }
+
+    record Loaded(long segment, long tasks) {
+    }
+
+    static void write(Path directory, long segment, long lastId, InMemoryTaskRepository tasks) {
+        Path target = directory.resolve(fileName(segment));
+        Path temporary = directory.resolve(fileName(segment) + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(segment);
+            out.writeLong(lastId);
+            try {
+                tasks.forEach(null, task -> writeTask(out, task));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeByte(END);
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            file.getChannel().force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write snapshot " + target, e);
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not publish snapshot " + target, e);
+        }
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) {
+        try {
+            out.writeByte(ENTRY);
+            out.writeLong(task.getId());
+            out.writeBoolean(task.isDone());
+            out.writeInt(task.getPriority());
+            out.writeInt(TaskWriteAheadLog.toDueDay(task.getDueDate()));
+            out.writeLong(task.getVersion());
+            if (task.getTitle() == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] title = task.getTitle().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(title.length);
+                out.write(title);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads the newest snapshot into {@code tasks}, or returns empty when there is none yet.
+     */
+    static Optional<Loaded> loadLatest(Path directory, InMemoryTaskRepository tasks) {
+        Optional<Path> latest = snapshots(directory).stream().max(Comparator.naturalOrder());
+        if (latest.isEmpty()) {
+            return Optional.empty();
+        }
+        Path snapshot = latest.get();
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16), new CRC32C())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                throw new IllegalStateException("Unrecognised snapshot format in " + snapshot);
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unrecognised snapshot version " + version + " in " + snapshot);
+            }
+            long segment = in.readLong();
+            tasks.advanceSequence(in.readLong());
+            long count = 0;
+            while (in.readByte() == ENTRY) {
+                long id = in.readLong();
+                boolean done = in.readBoolean();
+                int priority = in.readInt();
+                LocalDate dueDate = TaskWriteAheadLog.fromDueDay(in.readInt());
+                long taskVersion = in.readLong();
+                int titleLength = in.readInt();
+                String title = null;
+                if (titleLength >= 0) {
+                    title = new String(in.readNBytes(titleLength), StandardCharsets.UTF_8);
+                }
+                tasks.restore(new Task(id, title, done, priority, dueDate, taskVersion));
+                count++;
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IllegalStateException("Checksum mismatch in snapshot " + snapshot);
+            }
+            return Optional.of(new Loaded(segment, count));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read snapshot " + snapshot, e);
+        }
+    }
+
+    static void deleteBefore(Path directory, long segment) throws IOException {
+        for (Path snapshot : snapshots(directory)) {
+            if (segmentOf(snapshot) < segment) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+        // Left behind by a crash in the middle of write()
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(".bin.tmp")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static List<Path> snapshots(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SNAPSHOT_NAME.matcher(file.getFileName().toString()).matches()).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long segmentOf(Path snapshot) {
+        Matcher matcher = SNAPSHOT_NAME.matcher(snapshot.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a snapshot: " + snapshot);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static String fileName(long segment) {
+        return "snapshot-%020d.bin".formatted(segment);
+    }
+
+    // Makes the rename itself durable; not every platform can open a directory, hence best effort
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Nothing more we can do portably
+        }
+    }
+}
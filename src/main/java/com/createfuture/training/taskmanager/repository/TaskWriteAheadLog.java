@@ -0,0 +1,370 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.WalTaskRepository.FsyncPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmented, memory-mapped write-ahead log behind {@link WalTaskRepository}. Each record is framed
+ * as {@code [length][crc32c][payload]}, and a zero length ends a segment. A bad frame can only be
+ * a torn tail left by a crash in the newest segment: replay stops there and zeroes its length so
+ * later starts see a clean end. Anywhere else it is corruption and fails recovery, since skipping
+ * the rest of a segment would replay something other than a prefix of history. Segments are
+ * numbered and never reopened: every start appends to a fresh one.
+ * <p>
+ * Appends must be serialized by the caller. Durability follows the {@link FsyncPolicy}: with
+ * {@code ALWAYS} writers block in {@link #awaitDurable(long)} while one flusher thread forces the
+ * segment for everyone who appended in the meantime (group commit).
+ */
+final class TaskWriteAheadLog implements AutoCloseable {
+
+    interface Replay {
+        void put(Task task);
+
+        void delete(long id);
+
+        void reset();
+    }
+
+    record ReplayResult(long records, long lastSegment) {
+    }
+
+    // badFrameAt is the offset of the first bad frame, or -1 when the segment ended cleanly
+    private record SegmentReplay(long records, int badFrameAt) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TaskWriteAheadLog.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{20})\\.log");
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte RESET = 3;
+    private static final int FRAME_BYTES = 8;
+    private static final int PUT_BYTES = 1 + 8 + 1 + 4 + 4 + 8 + 4;
+    private static final int NO_DUE_DATE = Integer.MIN_VALUE;
+    private static final int ID_BYTES = 1 + 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration fsyncInterval;
+    private final CRC32C checksum = new CRC32C();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+    private final Thread flusher;
+
+    private int recordStart;
+    private volatile Segment current;
+    private volatile long appendedLsn;
+    private volatile long syncedLsn;
+    private volatile boolean running = true;
+    private volatile RuntimeException failure;
+
+    TaskWriteAheadLog(Path directory, long firstSegment, int segmentSize, FsyncPolicy fsyncPolicy,
+                      Duration fsyncInterval, Thread.Builder threadBuilder) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+        this.current = Segment.create(directory, firstSegment, segmentSize);
+        this.flusher = fsyncPolicy == FsyncPolicy.NEVER
+                ? null
+                : threadBuilder.name("task-wal-flusher").start(this::runFlusher);
+    }
+
+    long appendPut(Task task) {
+        byte[] title = task.getTitle() == null ? null : task.getTitle().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = reserve(PUT_BYTES + (title == null ? 0 : title.length));
+        buffer.put(PUT).putLong(task.getId()).put((byte) (task.isDone() ? 1 : 0))
+                .putInt(task.getPriority()).putInt(toDueDay(task.getDueDate())).putLong(task.getVersion());
+        if (title == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(title.length).put(title);
+        }
+        return commitRecord(buffer);
+    }
+
+    long appendDelete(long id) {
+        return commitRecord(reserve(ID_BYTES).put(DELETE).putLong(id));
+    }
+
+    long appendReset() {
+        return commitRecord(reserve(ID_BYTES).put(RESET).putLong(0L));
+    }
+
+    long appendedLsn() {
+        return appendedLsn;
+    }
+
+    // Leaves the buffer positioned at the start of the payload, after a frame that is filled in last
+    private ByteBuffer reserve(int payloadBytes) {
+        RuntimeException failed = failure;
+        if (failed != null) {
+            throw new IllegalStateException("Write-ahead log is unusable after an I/O failure", failed);
+        }
+        if (FRAME_BYTES + payloadBytes > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payloadBytes + " bytes exceeds the segment size");
+        }
+        if (current.buffer.remaining() < FRAME_BYTES + payloadBytes) {
+            roll();
+        }
+        MappedByteBuffer buffer = current.buffer;
+        recordStart = buffer.position();
+        buffer.position(recordStart + FRAME_BYTES);
+        return buffer;
+    }
+
+    private long commitRecord(ByteBuffer buffer) {
+        int length = buffer.position() - recordStart - FRAME_BYTES;
+        checksum.reset();
+        checksum.update(buffer.slice(recordStart + FRAME_BYTES, length));
+        buffer.putInt(recordStart + 4, (int) checksum.getValue());
+        buffer.putInt(recordStart, length);
+        long lsn = appendedLsn + 1;
+        appendedLsn = lsn;
+        return lsn;
+    }
+
+    /**
+     * Starts a new segment and returns its number. Everything appended before the call lives in
+     * lower-numbered segments, which are forced first unless the policy is {@code NEVER}.
+     */
+    long roll() {
+        Segment previous = current;
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            previous.buffer.force();
+        }
+        current = Segment.create(directory, previous.number + 1, segmentSize);
+        previous.close();
+        return current.number;
+    }
+
+    void awaitDurable(long lsn) {
+        if (fsyncPolicy != FsyncPolicy.ALWAYS || syncedLsn >= lsn) {
+            return;
+        }
+        LockSupport.unpark(flusher);
+        syncLock.lock();
+        try {
+            while (syncedLsn < lsn) {
+                RuntimeException failed = failure;
+                if (failed != null) {
+                    throw new IllegalStateException("Write-ahead log could not be forced to disk", failed);
+                }
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            // ALWAYS writers unpark us straight away; the interval is only a fallback for them
+            LockSupport.parkNanos(fsyncInterval.toNanos());
+            sync();
+        }
+    }
+
+    private void sync() {
+        // Read the lsn before the segment: a roll in between has already forced the older records
+        long target = appendedLsn;
+        if (target <= syncedLsn) {
+            return;
+        }
+        try {
+            current.buffer.force();
+            syncedLsn = target;
+        } catch (UncheckedIOException e) {
+            log.error("Forcing the write-ahead log failed", e);
+            failure = e;
+        }
+        syncLock.lock();
+        try {
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    void deleteSegmentsBefore(long number) {
+        for (Path segment : segments(directory, 0L)) {
+            if (segmentNumber(segment) < number) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException e) {
+                    log.warn("Could not delete write-ahead log segment {}", segment, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        current.buffer.force();
+        syncedLsn = appendedLsn;
+        syncLock.lock();
+        try {
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+        current.close();
+    }
+
+    /**
+     * Replays every record in segments numbered {@code fromSegment} or higher, oldest first.
+     */
+    static ReplayResult replay(Path directory, long fromSegment, Replay replay) {
+        long records = 0;
+        long lastSegment = fromSegment - 1;
+        CRC32C crc = new CRC32C();
+        List<Path> segments = segments(directory, fromSegment);
+        for (Path segment : segments) {
+            lastSegment = segmentNumber(segment);
+            SegmentReplay replayed;
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                replayed = replaySegment(buffer, crc, replay);
+                if (replayed.badFrameAt() >= 0) {
+                    if (!segment.equals(segments.get(segments.size() - 1))) {
+                        throw new IllegalStateException("Corrupt write-ahead log record in " + segment
+                                + " at offset " + replayed.badFrameAt());
+                    }
+                    log.warn("Discarding torn write-ahead log tail in {} from offset {}", segment, replayed.badFrameAt());
+                    channel.write(ByteBuffer.allocate(Integer.BYTES), replayed.badFrameAt());
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not replay " + segment, e);
+            }
+            records += replayed.records();
+        }
+        return new ReplayResult(records, lastSegment);
+    }
+
+    private static SegmentReplay replaySegment(ByteBuffer buffer, CRC32C crc, Replay replay) {
+        long records = 0;
+        while (buffer.remaining() >= FRAME_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length == 0) {
+                break;
+            }
+            if (length < ID_BYTES || length > buffer.remaining() - FRAME_BYTES) {
+                return new SegmentReplay(records, start);
+            }
+            crc.reset();
+            crc.update(buffer.slice(start + FRAME_BYTES, length));
+            if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+                return new SegmentReplay(records, start);
+            }
+            ByteBuffer payload = buffer.slice(start + FRAME_BYTES, length);
+            byte type = payload.get();
+            long id = payload.getLong();
+            switch (type) {
+                case PUT -> {
+                    boolean done = payload.get() != 0;
+                    int priority = payload.getInt();
+                    LocalDate dueDate = fromDueDay(payload.getInt());
+                    long version = payload.getLong();
+                    int titleLength = payload.getInt();
+                    String title = null;
+                    if (titleLength >= 0) {
+                        byte[] bytes = new byte[titleLength];
+                        payload.get(bytes);
+                        title = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                    replay.put(new Task(id, title, done, priority, dueDate, version));
+                }
+                case DELETE -> replay.delete(id);
+                case RESET -> replay.reset();
+                default -> throw new IllegalStateException("Unknown write-ahead log record type " + type);
+            }
+            buffer.position(start + FRAME_BYTES + length);
+            records++;
+        }
+        return new SegmentReplay(records, -1);
+    }
+
+    // Due dates are stored as epoch days, which fit an int for any realistic date
+    static int toDueDay(LocalDate dueDate) {
+        return dueDate == null ? NO_DUE_DATE : Math.toIntExact(dueDate.toEpochDay());
+    }
+
+    static LocalDate fromDueDay(int dueDay) {
+        return dueDay == NO_DUE_DATE ? null : LocalDate.ofEpochDay(dueDay);
+    }
+
+    private static List<Path> segments(Path directory, long fromSegment) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .filter(file -> segmentNumber(file) >= fromSegment)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long segmentNumber(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a write-ahead log segment: " + segment);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private record Segment(long number, FileChannel channel, MappedByteBuffer buffer) {
+
+        static Segment create(Path directory, long number, int size) {
+            Path path = directory.resolve("wal-%020d.log".formatted(number));
+            try {
+                FileChannel channel = FileChannel.open(path,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                // A fresh mapping is zero-filled, and a zero length marks the end of the log
+                return new Segment(number, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create write-ahead log segment " + path, e);
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close write-ahead log segment {}", number, e);
+            }
+        }
+    }
+}
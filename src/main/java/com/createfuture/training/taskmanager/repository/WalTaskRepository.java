@@ -0,0 +1,460 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskBulkResult.Outcome;
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Durable engine for {@code tasks.storage=wal}: reads are served lock-free by an
+ * {@link InMemoryTaskRepository}, and every mutation is appended to a {@link TaskWriteAheadLog}
+ * as the task's resulting state. Mutations are serialized by a single write lock, which also fixes
+ * the log order. Deletes and resets are logged before they are applied; a put is applied first,
+ * since its record is the state it produces, and undone if the append fails. A periodic
+ * {@link TaskSnapshot} lets old segments be deleted; on startup the latest snapshot is loaded and
+ * the log tail replayed.
+ * <p>
+ * Snapshots are fuzzy: the log is rolled first and the tasks are copied without blocking writers.
+ * That is safe because every record is idempotent, so replaying the tail on top of a slightly
+ * newer copy still ends in the right state.
+ */
+@Repository
+@ConditionalOnProperty(name = "tasks.storage", havingValue = "wal")
+@Timed(value = "tasks.repository", histogram = true, percentiles = {0.5, 0.95, 0.99})
+public class WalTaskRepository implements TaskRepository, AutoCloseable {
+
+    public enum FsyncPolicy {ALWAYS, INTERVAL, NEVER}
+
+    private static final Logger log = LoggerFactory.getLogger(WalTaskRepository.class);
+
+    private final InMemoryTaskRepository tasks = new InMemoryTaskRepository();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final Path directory;
+    private final TaskWriteAheadLog wal;
+    private final ScheduledExecutorService snapshotter;
+
+    private volatile long snapshotLsn;
+
+    @Autowired
+    public WalTaskRepository(Environment environment,
+                             @Value("${tasks.wal.directory:./data/wal}") String directory,
+                             @Value("${tasks.wal.segment-size:64MB}") DataSize segmentSize,
+                             @Value("${tasks.wal.fsync:INTERVAL}") FsyncPolicy fsync,
+                             @Value("${tasks.wal.fsync-interval:100ms}") Duration fsyncInterval,
+                             @Value("${tasks.wal.snapshot-interval:10m}") Duration snapshotInterval) {
+        this(Path.of(directory), segmentSize, fsync, fsyncInterval, snapshotInterval,
+                Threading.VIRTUAL.isActive(environment) ? Thread.ofVirtual() : Thread.ofPlatform());
+    }
+
+    public WalTaskRepository(Path directory, DataSize segmentSize, FsyncPolicy fsync,
+                             Duration fsyncInterval, Duration snapshotInterval, Thread.Builder threadBuilder) {
+        this.directory = directory;
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create " + directory, e);
+        }
+        Optional<TaskSnapshot.Loaded> snapshot = TaskSnapshot.loadLatest(directory, tasks);
+        long fromSegment = snapshot.map(TaskSnapshot.Loaded::segment).orElse(1L);
+        TaskWriteAheadLog.ReplayResult replayed = replay(fromSegment);
+        log.info("Recovered {} tasks from {} ({} from snapshot, {} log records replayed) in {} ms",
+                tasks.size(), directory, snapshot.map(TaskSnapshot.Loaded::tasks).orElse(0L),
+                replayed.records(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        // A replayed tail is worth compacting at the next opportunity
+        this.snapshotLsn = replayed.records() > 0 ? -1 : 0;
+        this.wal = new TaskWriteAheadLog(directory, Math.max(fromSegment, replayed.lastSegment() + 1),
+                Math.toIntExact(segmentSize.toBytes()), fsync, fsyncInterval, threadBuilder);
+        if (snapshotInterval.isZero()) {
+            this.snapshotter = null;
+        } else {
+            this.snapshotter = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("task-wal-snapshot").daemon().factory());
+            this.snapshotter.scheduleWithFixedDelay(this::snapshotIfChanged,
+                    snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Replays the log tail into a plain map first, so a task touched many times costs one
+     * skip-list update instead of one per record. A deleted task is staged as {@code null}.
+     */
+    private TaskWriteAheadLog.ReplayResult replay(long fromSegment) {
+        Map<Long, Task> staged = new HashMap<>();
+        boolean[] resetSeen = {false};
+        TaskWriteAheadLog.ReplayResult result = TaskWriteAheadLog.replay(directory, fromSegment, new TaskWriteAheadLog.Replay() {
+            @Override
+            public void put(Task task) {
+                staged.put(task.getId(), task);
+            }
+
+            @Override
+            public void delete(long id) {
+                staged.put(id, null);
+            }
+
+            @Override
+            public void reset() {
+                staged.replaceAll((id, task) -> null);
+                resetSeen[0] = true;
+            }
+        });
+        if (resetSeen[0]) {
+            tasks.reset();
+        }
+        staged.forEach((id, task) -> {
+            tasks.advanceSequence(id);
+            if (task == null) {
+                tasks.deleteById(id);
+            } else {
+                tasks.restore(task);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Task addTask(Task draft) {
+        Task task;
+        long lsn;
+        writeLock.lock();
+        try {
+            task = tasks.addTask(draft);
+            lsn = logPut(null, task);
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(lsn);
+        return task;
+    }
+
+    @Override
+    public List<Task> addTasks(List<String> titles) {
+        List<Task> created = new ArrayList<>(titles.size());
+        long lsn = 0;
+        writeLock.lock();
+        try {
+            for (String title : titles) {
+                Task task = tasks.addTask(new Task(title));
+                lsn = logPut(null, task);
+                created.add(task);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(lsn);
+        return created;
+    }
+
+    @Override
+    public List<Task> findAll() {
+        return tasks.findAll();
+    }
+
+    @Override
+    public void forEach(Boolean done, Consumer<Task> action) {
+        tasks.forEach(done, action);
+    }
+
+    @Override
+    public List<Task> findOpen() {
+        return tasks.findOpen();
+    }
+
+    @Override
+    public TaskColumns findOpenColumns() {
+        return tasks.findOpenColumns();
+    }
+
+    @Override
+    public List<Task> findOpenAfter(long afterId, int limit) {
+        return tasks.findOpenAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Long> findIds(Boolean done, String titlePrefix, long afterId, int limit) {
+        return tasks.findIds(done, titlePrefix, afterId, limit);
+    }
+
+    @Override
+    public List<Task> findTopN(int n) {
+        return tasks.findTopN(n);
+    }
+
+    @Override
+    public Task findById(Long id) {
+        return tasks.findById(id);
+    }
+
+    @Override
+    public int markDoneById(Long id) {
+        return markDoneByIds(List.of(id));
+    }
+
+    @Override
+    public int markDoneByIds(Collection<Long> ids) {
+        int updated = 0;
+        long lsn = 0;
+        writeLock.lock();
+        try {
+            for (Long id : ids) {
+                long logged = markDoneLogged(id);
+                if (logged != 0) {
+                    lsn = logged;
+                    updated++;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(lsn);
+        return updated;
+    }
+
+    @Override
+    public int updateTask(Task task) {
+        long lsn;
+        writeLock.lock();
+        try {
+            Task previous = tasks.findById(task.getId());
+            if (previous == null || tasks.updateTask(task) == 0) {
+                return 0;
+            }
+            lsn = logPut(previous, tasks.findById(task.getId()));
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(lsn);
+        return 1;
+    }
+
+    @Override
+    public Task updateTaskIfVersion(Long id, Task changes, long expectedVersion) {
+        Task stored;
+        long lsn;
+        writeLock.lock();
+        try {
+            Task previous = tasks.findById(id);
+            stored = tasks.updateTaskIfVersion(id, changes, expectedVersion);
+            if (stored == null) {
+                return null;
+            }
+            lsn = logPut(previous, stored);
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(lsn);
+        return stored;
+    }
+
+    @Override
+    public int deleteById(Long id) {
+        return deleteByIds(List.of(id));
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        int deleted = 0;
+        long lsn = 0;
+        writeLock.lock();
+        try {
+            for (Long id : ids) {
+                long logged = deleteLogged(id);
+                if (logged != 0) {
+                    lsn = logged;
+                    deleted++;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(lsn);
+        return deleted;
+    }
+
+    // The whole list is applied under one lock hold and waits for one fsync
+    @Override
+    public Map<Long, Outcome> markDoneEach(Collection<Long> ids) {
+        Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+        long lsn = 0;
+        writeLock.lock();
+        try {
+            for (Long id : ids) {
+                if (outcomes.containsKey(id)) {
+                    continue;
+                }
+                Task task = tasks.findById(id);
+                if (task == null) {
+                    outcomes.put(id, Outcome.NOT_FOUND);
+                } else if (task.isDone()) {
+                    outcomes.put(id, Outcome.ALREADY_DONE);
+                } else {
+                    lsn = markDoneLogged(id);
+                    outcomes.put(id, Outcome.DONE);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(lsn);
+        return outcomes;
+    }
+
+    @Override
+    public Map<Long, Outcome> deleteEach(Collection<Long> ids) {
+        Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+        long lsn = 0;
+        writeLock.lock();
+        try {
+            for (Long id : ids) {
+                if (outcomes.containsKey(id)) {
+                    continue;
+                }
+                long logged = deleteLogged(id);
+                if (logged != 0) {
+                    lsn = logged;
+                }
+                outcomes.put(id, logged != 0 ? Outcome.DELETED : Outcome.NOT_FOUND);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(lsn);
+        return outcomes;
+    }
+
+    @Override
+    public void reset() {
+        long lsn;
+        writeLock.lock();
+        try {
+            lsn = wal.appendReset();
+            tasks.reset();
+        } finally {
+            writeLock.unlock();
+        }
+        wal.awaitDurable(lsn);
+    }
+
+    // Holding the write lock. Returns the change's lsn, or 0 if there was no such task
+    private long markDoneLogged(Long id) {
+        Task previous = tasks.findById(id);
+        if (previous == null || tasks.markDoneById(id) == 0) {
+            return 0;
+        }
+        return logPut(previous, tasks.findById(id));
+    }
+
+    // Holding the write lock, so the task cannot go away between the check and the delete
+    private long deleteLogged(Long id) {
+        if (tasks.findById(id) == null) {
+            return 0;
+        }
+        long lsn = wal.appendDelete(id);
+        tasks.deleteById(id);
+        return lsn;
+    }
+
+    /**
+     * Logs the state a put has just left the task in. A put's record is the state it produced, so
+     * it is applied first; if the append then fails the task is put back as it was, and memory
+     * never shows a change that the log, and so a restart, would not.
+     */
+    private long logPut(Task previous, Task stored) {
+        try {
+            return wal.appendPut(stored);
+        } catch (RuntimeException e) {
+            if (previous == null) {
+                tasks.deleteById(stored.getId());
+            } else {
+                tasks.restore(previous);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a snapshot and deletes the log segments and snapshots it supersedes.
+     */
+    public void snapshot() {
+        snapshotLock.lock();
+        try {
+            long segment;
+            long lastId;
+            long lsn;
+            writeLock.lock();
+            try {
+                segment = wal.roll();
+                lastId = tasks.lastId();
+                lsn = wal.appendedLsn();
+            } finally {
+                writeLock.unlock();
+            }
+            TaskSnapshot.write(directory, segment, lastId, tasks);
+            wal.deleteSegmentsBefore(segment);
+            TaskSnapshot.deleteBefore(directory, segment);
+            snapshotLsn = lsn;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void snapshotIfChanged() {
+        if (wal.appendedLsn() == snapshotLsn) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            snapshot();
+            log.info("Wrote task snapshot in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the log still holds everything
+            log.error("Task snapshot failed", e);
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+        snapshotLock.lock();
+        try {
+            wal.close();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+}
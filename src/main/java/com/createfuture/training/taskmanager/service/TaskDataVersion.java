@@ -0,0 +1,71 @@
+package com.createfuture.training.taskmanager.service;
+
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the task data, bumped for every {@link TaskEvent} that {@link TaskService}
+ * publishes. The bump happens after the commit: a reader may label new data with the old
+ * version, which only costs an extra refresh, but can never label old data with a new one.
+ * <p>
+ * The counter restarts with the process, so {@link #etag()} carries the start time as well to stop
+ * a tag from before a restart matching different data.
+ * <p>
+ * Each tenant has its own version, so one tenant's writes never invalidate another tenant's
+ * cached lists; tags of tenants other than the default also name the tenant. A tenant's version is
+ * the value of a process-wide sequence at its last change, and only the most recently used
+ * {@code tasks.tenants.max-cached} tenants are remembered. A forgotten tenant starts again from the
+ * current sequence, which is never below any version it had, so dropping it costs a refresh but
+ * never makes an old tag match new data.
+ */
+@Component
+public class TaskDataVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<String, Long> versions;
+
+    public TaskDataVersion(@Value("${tasks.tenants.max-cached:10000}") int maxTenants) {
+        this.versions = Caffeine.newBuilder().maximumSize(maxTenants).build();
+    }
+
+    public long current() {
+        return versions.get(TenantContext.current(), tenant -> sequence.get());
+    }
+
+    public String etag() {
+        return etagOf(current());
+    }
+
+    public String etagOf(long version) {
+        return etagOf(version, "");
+    }
+
+    // The variant tells apart representations of the same version, such as another media type or encoding
+    public String etagOf(long version, String variant) {
+        String tenant = TenantContext.current();
+        String scope = TenantContext.DEFAULT_TENANT.equals(tenant) ? "" : tenant + "-";
+        return "\"" + epoch + "-" + scope + version + variant + "\"";
+    }
+
+    // For a change readers see without an event, such as a write-behind operation being queued or dropped
+    public void bump() {
+        bump(TenantContext.current());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        bump(event.tenant());
+    }
+
+    private void bump(String tenant) {
+        long version = sequence.incrementAndGet();
+        versions.asMap().merge(tenant, version, Math::max);
+    }
+}
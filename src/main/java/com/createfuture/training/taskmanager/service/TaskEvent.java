@@ -0,0 +1,40 @@
+package com.createfuture.training.taskmanager.service;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Published by {@link TaskService} after each successful mutation, and by the archiver for each
+ * task it moves out of the hot table. {@code task} is only set for CREATED and UPDATED; {@code id}
+ * is null for RESET. {@code tenant} is the tenant
+ * current when the event was created, so listeners never mix up tenants' data.
+ */
+public record TaskEvent(Type type, Long id, Task task, @JsonIgnore String tenant) {
+
+    public enum Type {CREATED, UPDATED, DONE, DELETED, ARCHIVED, RESET}
+
+    public static TaskEvent created(Task task) {
+        return new TaskEvent(Type.CREATED, task.getId(), task, TenantContext.current());
+    }
+
+    public static TaskEvent updated(Task task) {
+        return new TaskEvent(Type.UPDATED, task.getId(), task, TenantContext.current());
+    }
+
+    public static TaskEvent done(Long id) {
+        return new TaskEvent(Type.DONE, id, null, TenantContext.current());
+    }
+
+    public static TaskEvent deleted(Long id) {
+        return new TaskEvent(Type.DELETED, id, null, TenantContext.current());
+    }
+
+    public static TaskEvent archived(Long id) {
+        return new TaskEvent(Type.ARCHIVED, id, null, TenantContext.current());
+    }
+
+    public static TaskEvent reset() {
+        return new TaskEvent(Type.RESET, null, null, TenantContext.current());
+    }
+}
@@ -0,0 +1,309 @@
+package com.createfuture.training.taskmanager.service;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over task titles, one partition per tenant. The default tenant's
+ * partition is built from the repository at startup, any other tenant's on its first search;
+ * both are kept current from {@link TaskEvent}s. At most {@code tasks.search.max-partitions} are
+ * kept, and a partition not searched for {@code tasks.search.partition-idle-timeout} is dropped
+ * and rebuilt on its next search, so rotating tenant ids cannot grow the heap without limit.
+ * Every query term also matches as a prefix, but an exact token match ranks higher; tasks
+ * matching more terms rank first. A term shorter than {@link #MIN_PREFIX_LENGTH} only matches
+ * whole tokens, and a prefix stops collecting tasks at {@link #MAX_CANDIDATES}, so a one-letter
+ * query does not merge nearly every posting set.
+ */
+@Component
+@Timed(value = "tasks.search", histogram = true, percentiles = {0.5, 0.95, 0.99})
+public class TaskSearchIndex implements SmartInitializingSingleton {
+
+    static final int EXACT_MATCH_SCORE = 2;
+    static final int PREFIX_MATCH_SCORE = 1;
+    static final int MIN_PREFIX_LENGTH = 2;
+    static final int MAX_CANDIDATES = 10_000;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<Map.Entry<Long, Integer>> BY_RANK =
+            Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    static final int DEFAULT_MAX_PARTITIONS = 100;
+    static final Duration DEFAULT_PARTITION_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private final TaskRepository taskRepository;
+    private final Cache<String, Partition> partitions;
+
+    public TaskSearchIndex(TaskRepository taskRepository) {
+        this(taskRepository, DEFAULT_MAX_PARTITIONS, DEFAULT_PARTITION_IDLE_TIMEOUT);
+    }
+
+    @Autowired
+    public TaskSearchIndex(TaskRepository taskRepository,
+                           @Value("${tasks.search.max-partitions:100}") int maxPartitions,
+                           @Value("${tasks.search.partition-idle-timeout:30m}") Duration idleTimeout) {
+        this.taskRepository = taskRepository;
+        this.partitions = Caffeine.newBuilder()
+                .maximumSize(maxPartitions)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        partitions.put(TenantContext.DEFAULT_TENANT, new Partition(false));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        partitions.asMap().keySet().removeIf(tenant -> !TenantContext.DEFAULT_TENANT.equals(tenant));
+        Partition partition = partitions.get(TenantContext.DEFAULT_TENANT, tenant -> new Partition(false));
+        partition.clear();
+        TenantContext.run(TenantContext.DEFAULT_TENANT, () -> taskRepository.forEach(null, partition::index));
+    }
+
+    /**
+     * Events for a tenant without a partition are dropped: a build started later reads committed
+     * rows, which include them. Events arriving while a partition is being built are queued and
+     * replayed once the build has read the table.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        // Quietly: writes alone do not keep a partition nobody searches
+        Partition partition = partitions.policy().getIfPresentQuietly(event.tenant());
+        if (partition != null) {
+            partition.apply(event);
+        }
+    }
+
+    public List<Task> search(String query, int offset, int limit) {
+        Set<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return partition().search(terms, offset, limit);
+    }
+
+    public int size() {
+        return partition().documents.size();
+    }
+
+    int tokenCount() {
+        return partition().postings.size();
+    }
+
+    void index(Task task) {
+        partition().index(task);
+    }
+
+    void remove(Long id) {
+        partition().remove(id);
+    }
+
+    void clear() {
+        partition().clear();
+    }
+
+    // The first search for a tenant builds its partition; concurrent ones wait for that build.
+    // The table scan runs outside the map so events for other tenants are never held up by it.
+    private Partition partition() {
+        String tenant = TenantContext.current();
+        Partition partition = partitions.getIfPresent(tenant);
+        if (partition == null) {
+            Partition building = new Partition(true);
+            partition = partitions.asMap().putIfAbsent(tenant, building);
+            if (partition == null) {
+                build(tenant, building);
+                return building;
+            }
+        }
+        partition.awaitBuilt();
+        return partition;
+    }
+
+    private void build(String tenant, Partition partition) {
+        try {
+            taskRepository.forEach(null, partition::index);
+            partition.built();
+        } catch (RuntimeException e) {
+            // Let the next search try again
+            partitions.asMap().remove(tenant, partition);
+            partition.failed(e);
+            throw e;
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Partition {
+        private final ConcurrentHashMap<Long, Task> documents = new ConcurrentHashMap<>();
+        // Token -> ids; sorted so a prefix is a contiguous sub-map. Writers hold the partition's
+        // monitor, so a set emptied by one is dropped without racing another adding to it.
+        private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        // Events received while the partition is being built; null once it is built. Guarded by this
+        private List<TaskEvent> pending;
+
+        Partition(boolean building) {
+            if (building) {
+                pending = new ArrayList<>();
+            } else {
+                ready.complete(null);
+            }
+        }
+
+        synchronized void apply(TaskEvent event) {
+            if (pending != null) {
+                pending.add(event);
+            } else {
+                applyNow(event);
+            }
+        }
+
+        synchronized void built() {
+            pending.forEach(this::applyNow);
+            pending = null;
+            ready.complete(null);
+        }
+
+        void failed(RuntimeException e) {
+            ready.completeExceptionally(e);
+        }
+
+        void awaitBuilt() {
+            try {
+                ready.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        private void applyNow(TaskEvent event) {
+            switch (event.type()) {
+                case CREATED, UPDATED -> index(event.task());
+                case DONE -> documents.computeIfPresent(event.id(), (id, task) -> task.withDone(true));
+                // Search covers the hot table only, as a rebuild would
+                case DELETED, ARCHIVED -> remove(event.id());
+                case RESET -> clear();
+            }
+        }
+
+        List<Task> search(Set<String> terms, int offset, int limit) {
+            Map<Long, Integer> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> termScores = new HashMap<>();
+                Set<Long> exact = postings.get(term);
+                if (exact != null) {
+                    exact.forEach(id -> termScores.put(id, EXACT_MATCH_SCORE));
+                }
+                if (term.length() >= MIN_PREFIX_LENGTH) {
+                    // Longer tokens in order, until the term has gathered enough candidates
+                    for (Set<Long> ids : postings.subMap(term, false, term + Character.MAX_VALUE, true).values()) {
+                        if (termScores.size() >= MAX_CANDIDATES) {
+                            break;
+                        }
+                        for (Long id : ids) {
+                            termScores.putIfAbsent(id, PREFIX_MATCH_SCORE);
+                        }
+                    }
+                }
+                termScores.forEach((id, score) -> scores.merge(id, score, Integer::sum));
+            }
+            if (offset >= scores.size()) {
+                return List.of();
+            }
+
+            // Keep only the best offset + limit candidates instead of sorting every match
+            int wanted = (int) Math.min((long) offset + limit, scores.size());
+            PriorityQueue<Map.Entry<Long, Integer>> best = new PriorityQueue<>(BY_RANK.reversed());
+            for (Map.Entry<Long, Integer> candidate : scores.entrySet()) {
+                best.offer(candidate);
+                if (best.size() > wanted) {
+                    best.poll();
+                }
+            }
+
+            List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(best);
+            ranked.sort(BY_RANK);
+            List<Task> page = new ArrayList<>(ranked.size() - offset);
+            for (int i = offset; i < ranked.size(); i++) {
+                Task task = documents.get(ranked.get(i).getKey());
+                if (task != null) {
+                    page.add(task);
+                }
+            }
+            return page;
+        }
+
+        synchronized void index(Task task) {
+            Long id = task.getId();
+            Task previous = documents.put(id, task);
+            Set<String> tokens = tokenize(task.getTitle());
+            if (previous != null) {
+                for (String token : tokenize(previous.getTitle())) {
+                    if (!tokens.contains(token)) {
+                        unpost(token, id);
+                    }
+                }
+            }
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        synchronized void remove(Long id) {
+            Task previous = documents.remove(id);
+            if (previous != null) {
+                tokenize(previous.getTitle()).forEach(token -> unpost(token, id));
+            }
+        }
+
+        synchronized void clear() {
+            documents.clear();
+            postings.clear();
+        }
+
+        // The remapping may run more than once, so it only removes and then checks
+        private void unpost(String token, Long id) {
+            postings.computeIfPresent(token, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
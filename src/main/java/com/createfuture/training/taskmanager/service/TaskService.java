@@ -1,53 +1,341 @@
 package com.createfuture.training.taskmanager.service;
 
 import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskBulkResult;
+import com.createfuture.training.taskmanager.model.TaskBulkResult.Outcome;
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import com.createfuture.training.taskmanager.model.TaskSelector;
 import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.createfuture.training.taskmanager.service.TaskWriteBehindQueue.Operation;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
+@Timed(value = "tasks.service", histogram = true, percentiles = {0.5, 0.95, 0.99})
 public class TaskService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    static final int DEFAULT_BULK_CHUNK_SIZE = 1000;
+    // A predicate is applied to at most this many tasks per call, the same bound as an explicit id list
+    static final int DEFAULT_MAX_BULK_MATCHES = 10 * DEFAULT_BULK_CHUNK_SIZE;
+
     private final TaskRepository taskRepository;
+    private final TaskWriteBehindQueue writeBehindQueue; // null unless tasks.write-behind.enabled
+    private final ApplicationEventPublisher eventPublisher;
+    private final int bulkChunkSize;
+    private final int maxBulkMatches;
 
     public TaskService(TaskRepository taskRepository) {
+        this(taskRepository, Optional.empty(), event -> { }, DEFAULT_BULK_CHUNK_SIZE, DEFAULT_MAX_BULK_MATCHES);
+    }
+
+    @Autowired
+    public TaskService(TaskRepository taskRepository, Optional<TaskWriteBehindQueue> writeBehindQueue,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${tasks.bulk.chunk-size:1000}") int bulkChunkSize,
+                       @Value("${tasks.bulk.max-matches:10000}") int maxBulkMatches) {
         this.taskRepository = taskRepository;
+        this.writeBehindQueue = writeBehindQueue.orElse(null);
+        this.eventPublisher = eventPublisher;
+        this.bulkChunkSize = bulkChunkSize;
+        this.maxBulkMatches = maxBulkMatches;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehindQueue != null;
     }
 
     public Task addTask(String title) {
-        return taskRepository.addTask(title);
+        return addTask(new Task(title));
+    }
+
+    // Only the draft's title, priority and due date are used
+    public Task addTask(Task draft) {
+        Task created = taskRepository.addTask(draft);
+        eventPublisher.publishEvent(TaskEvent.created(created));
+        return created;
+    }
+
+    @Transactional
+    public List<Task> addTasks(List<String> titles) {
+        List<Task> created = taskRepository.addTasks(titles);
+        created.forEach(task -> eventPublisher.publishEvent(TaskEvent.created(task)));
+        return created;
     }
 
     public List<Task> getAllTasks() {
-        // Only return tasks that are not done
-        return taskRepository.findAll().stream()
-                .filter(task -> !task.isDone())
-                .toList(); 
+        // Only return tasks that are not done, filtered in the database
+        return applyPendingWrites(taskRepository.findOpen(), true, Integer.MAX_VALUE);
+    }
+
+    // Same tasks as getAllTasks in the compact form used for large list responses
+    public TaskColumns getOpenTaskColumns() {
+        TaskColumns columns = taskRepository.findOpenColumns();
+        if (writeBehindQueue == null || writeBehindQueue.isEmpty()) {
+            return columns;
+        }
+        // Any queued operation, done or delete, takes the task off the open list
+        return columns.filter(id -> writeBehindQueue.pendingOperation(id) == null);
+    }
+
+    // The size of page a keyset read returns at most; a full page of that size means another may follow
+    public static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    public List<Task> getOpenTasks(Long afterId, int limit) {
+        int pageSize = pageSize(limit);
+        long cursor = afterId == null ? 0L : afterId;
+        List<Task> tasks = taskRepository.findOpenAfter(cursor, pageSize);
+        if (writeBehindQueue == null || writeBehindQueue.isEmpty()) {
+            return tasks;
+        }
+        // Queued operations hide some rows of the page; read on past it by exactly that many
+        List<Task> visible = new ArrayList<>(pageSize);
+        int wanted = pageSize;
+        while (true) {
+            visible.addAll(applyPendingWrites(tasks, true, pageSize - visible.size()));
+            if (visible.size() == pageSize || tasks.size() < wanted) {
+                return visible;
+            }
+            cursor = tasks.get(tasks.size() - 1).getId();
+            wanted = pageSize - visible.size();
+            tasks = taskRepository.findOpenAfter(cursor, wanted);
+        }
+    }
+
+    // Done tasks in id order, archived ones included
+    public List<Task> getTaskHistory(Long afterId, int limit) {
+        return taskRepository.findDoneAfter(afterId == null ? 0L : afterId, pageSize(limit));
+    }
+
+    public Task getTask(Long id) {
+        return applyPendingWrite(taskRepository.findById(id), false);
+    }
+
+    public void exportTasks(Boolean done, Consumer<Task> action) {
+        if (writeBehindQueue == null) {
+            taskRepository.forEach(done, action);
+            return;
+        }
+        taskRepository.forEach(done, task -> {
+            Task visible = applyPendingWrite(task, Boolean.FALSE.equals(done));
+            if (visible != null) {
+                action.accept(visible);
+            }
+        });
     }
 
     public List<Task> getTopNTasks(int n) {
-        return taskRepository.findTopN(n);
+        // Ranked among open tasks, so a task queued as done drops out instead of showing as done.
+        // The ranking has no cursor, so widen it by the rows that queued operations hide until n are left
+        List<Task> top = taskRepository.findTopN(n);
+        if (writeBehindQueue == null || writeBehindQueue.isEmpty() || n <= 0) {
+            return top;
+        }
+        int wanted = n;
+        while (true) {
+            List<Task> visible = applyPendingWrites(top, true, n);
+            if (visible.size() == n || top.size() < wanted) {
+                return visible;
+            }
+            wanted += n - visible.size();
+            top = taskRepository.findTopN(wanted);
+        }
     }
 
     public boolean markDone(Long id) {
         // Mark the task as done, but do not delete it
-        return taskRepository.markDoneById(id) > 0;
+        if (enqueueWriteBehind(id, Operation.DONE)) {
+            return true;
+        }
+        boolean markedDone = taskRepository.markDoneById(id) > 0;
+        if (markedDone) {
+            eventPublisher.publishEvent(TaskEvent.done(id));
+        }
+        return markedDone;
+    }
+
+    /**
+     * Marks every selected task done in one transaction. Bulk mutations bypass the write-behind
+     * queue and report on committed state. A predicate covers the matching tasks after
+     * {@code afterId}, at most {@code tasks.bulk.max-matches} of them; the result's cursor continues it.
+     */
+    @Transactional
+    public TaskBulkResult markDone(TaskSelector selector, long afterId) {
+        TaskBulkResult result = applyToSelected(selector, afterId, taskRepository::markDoneEach);
+        result.outcomes().forEach((id, outcome) -> {
+            if (outcome == Outcome.DONE) {
+                eventPublisher.publishEvent(TaskEvent.done(id));
+            }
+        });
+        return result;
+    }
+
+    public TaskBulkResult markDone(TaskSelector selector) {
+        return markDone(selector, 0L);
+    }
+
+    @Transactional
+    public TaskBulkResult deleteTasks(TaskSelector selector, long afterId) {
+        TaskBulkResult result = applyToSelected(selector, afterId, taskRepository::deleteEach);
+        result.outcomes().forEach((id, outcome) -> {
+            if (outcome == Outcome.DELETED) {
+                eventPublisher.publishEvent(TaskEvent.deleted(id));
+            }
+        });
+        return result;
+    }
+
+    public TaskBulkResult deleteTasks(TaskSelector selector) {
+        return deleteTasks(selector, 0L);
+    }
+
+    // A predicate is resolved in keyset chunks, so no statement or id list grows with the table, and
+    // stops at maxBulkMatches so neither does the transaction or the outcome map
+    private TaskBulkResult applyToSelected(TaskSelector selector, long afterId,
+                                           Function<List<Long>, Map<Long, Outcome>> action) {
+        if (selector.hasIds()) {
+            return TaskBulkResult.of(action.apply(selector.ids()));
+        }
+        Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+        long cursor = afterId;
+        List<Long> chunk;
+        int wanted;
+        do {
+            wanted = Math.min(bulkChunkSize, maxBulkMatches - outcomes.size());
+            chunk = taskRepository.findIds(selector.done(), selector.titlePrefix(), cursor, wanted);
+            if (!chunk.isEmpty()) {
+                outcomes.putAll(action.apply(chunk));
+                cursor = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == wanted && outcomes.size() < maxBulkMatches);
+        return TaskBulkResult.of(outcomes, outcomes.size() >= maxBulkMatches ? cursor : null);
     }
 
     public void resetTasks() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.clear();
+        }
         taskRepository.reset();
+        eventPublisher.publishEvent(TaskEvent.reset());
     }
 
     public boolean deleteTask(Long id) {
-        return taskRepository.deleteById(id) > 0;
+        if (enqueueWriteBehind(id, Operation.DELETE)) {
+            return true;
+        }
+        boolean deleted = taskRepository.deleteById(id) > 0;
+        if (deleted) {
+            eventPublisher.publishEvent(TaskEvent.deleted(id));
+        }
+        return deleted;
     }
 
+    // Renames the task and keeps its priority and due date
     public Task updateTask(Long id, String newTitle) {
-        Task task = taskRepository.findById(id);
-        if (task != null) {
-            task.setTitle(newTitle);
-            taskRepository.updateTask(task);
+        return updateTask(id, existing -> new Task(existing.getId(), newTitle, existing.isDone(),
+                existing.getPriority(), existing.getDueDate()));
+    }
+
+    // Replaces the title, priority and due date; the done flag is kept
+    public Task updateTask(Long id, Task changes) {
+        return updateTask(id, existing -> changes);
+    }
+
+    /**
+     * Replaces the title, priority and due date only if the task is still at
+     * {@code expectedVersion}, in a single statement and without reading it first. Returns null
+     * when the task does not exist and throws {@link OptimisticLockingFailureException} when
+     * someone else changed it since that version was read.
+     */
+    public Task updateTask(Long id, Task changes, long expectedVersion) {
+        if (isPendingDelete(id)) {
+            return null;
+        }
+        Task updated = taskRepository.updateTaskIfVersion(id, changes, expectedVersion);
+        if (updated == null) {
+            // Only the failure path pays for a read, to tell a missing task from a stale version
+            if (taskRepository.findById(id) == null) {
+                return null;
+            }
+            throw new OptimisticLockingFailureException("Task " + id + " has changed since version " + expectedVersion);
+        }
+        eventPublisher.publishEvent(TaskEvent.updated(updated));
+        return applyPendingWrite(updated, false);
+    }
+
+    /**
+     * Last writer wins, but only over the fields it changes: the write is conditional on the
+     * version that was read, and a lost race re-reads and tries again, so a concurrent mark-done
+     * is never reverted. The failed attempt evicts the cached task, so the re-read is fresh.
+     */
+    private Task updateTask(Long id, Function<Task, Task> change) {
+        while (true) {
+            Task existing = applyPendingWrite(taskRepository.findById(id), false);
+            if (existing == null) {
+                return null;
+            }
+            // findById may hand out a cached instance, so never mutate it in place
+            Task updated = taskRepository.updateTaskIfVersion(id, change.apply(existing), existing.getVersion());
+            if (updated != null) {
+                eventPublisher.publishEvent(TaskEvent.updated(updated));
+                return applyPendingWrite(updated, false);
+            }
+        }
+    }
+
+    private boolean isPendingDelete(Long id) {
+        return writeBehindQueue != null && writeBehindQueue.pendingOperation(id) == Operation.DELETE;
+    }
+
+    // In write-behind mode the write is only queued, so whether the task exists is not known yet;
+    // the queue publishes the event once the write has committed
+    private boolean enqueueWriteBehind(Long id, Operation operation) {
+        return writeBehindQueue != null && writeBehindQueue.enqueue(id, operation);
+    }
+
+    // Overlays queued write-behind operations so reads see them before they are committed
+    private List<Task> applyPendingWrites(List<Task> tasks, boolean openOnly, int limit) {
+        if (writeBehindQueue == null || writeBehindQueue.isEmpty()) {
+            return tasks.size() > limit ? tasks.subList(0, limit) : tasks;
+        }
+        List<Task> visible = new ArrayList<>(Math.min(tasks.size(), limit));
+        for (Task task : tasks) {
+            if (visible.size() == limit) {
+                break;
+            }
+            Task pendingTask = applyPendingWrite(task, openOnly);
+            if (pendingTask != null) {
+                visible.add(pendingTask);
+            }
+        }
+        return visible;
+    }
+
+    private Task applyPendingWrite(Task task, boolean openOnly) {
+        if (task == null || writeBehindQueue == null) {
+            return task;
+        }
+        Operation operation = writeBehindQueue.pendingOperation(task.getId());
+        if (operation == null) {
+            return task;
+        }
+        if (operation == Operation.DELETE || openOnly) {
+            return null;
         }
-        return task;
+        return task.withDone(true);
     }
 }
@@ -0,0 +1,283 @@
+package com.createfuture.training.taskmanager.service;
+
+import com.createfuture.training.taskmanager.model.TaskBulkResult.Outcome;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for markDone and delete, enabled with {@code tasks.write-behind.enabled=true}.
+ * Operations are merged per tenant and task id and committed by a single writer thread in batched
+ * transactions, one per tenant in the batch. Entries stay visible through
+ * {@link #pendingOperation(long)} until their batch has committed. A failing batch is retried with
+ * exponential backoff; after {@code max-attempts} failures its operations are committed one at a
+ * time and any that still fail are logged and dropped, so one bad operation cannot hold up the rest
+ * of the queue.
+ * <p>
+ * DONE and DELETED events are published by the writer for the tasks a batch actually changed, once
+ * it has committed. Queueing or dropping an operation changes what reads see without an event, so
+ * both bump the tenant's {@link TaskDataVersion} instead.
+ */
+@Component
+@ConditionalOnProperty(name = "tasks.write-behind.enabled", havingValue = "true")
+public class TaskWriteBehindQueue implements SmartLifecycle {
+
+    public enum Operation {DONE, DELETE}
+
+    private static final Logger log = LoggerFactory.getLogger(TaskWriteBehindQueue.class);
+
+    private record Key(String tenant, long id) {
+    }
+
+    private final ConcurrentHashMap<Key, Operation> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskDataVersion dataVersion;
+    private final Thread.Builder threadBuilder;
+    private final int capacity;
+    private final int maxBatchSize;
+    private final Duration flushInterval;
+    private final int maxAttempts;
+    private final Duration maxBackoff;
+
+    private int failedAttempts; // guarded by flushLock
+    private volatile boolean running;
+    private volatile boolean backingOff;
+    private volatile Thread writer;
+
+    public TaskWriteBehindQueue(TaskRepository taskRepository,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher,
+                                TaskDataVersion dataVersion,
+                                Environment environment,
+                                @Value("${tasks.write-behind.capacity:10000}") int capacity,
+                                @Value("${tasks.write-behind.max-batch-size:500}") int maxBatchSize,
+                                @Value("${tasks.write-behind.flush-interval:50ms}") Duration flushInterval,
+                                @Value("${tasks.write-behind.max-attempts:10}") int maxAttempts,
+                                @Value("${tasks.write-behind.max-backoff:30s}") Duration maxBackoff) {
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.dataVersion = dataVersion;
+        this.threadBuilder = Threading.VIRTUAL.isActive(environment) ? Thread.ofVirtual() : Thread.ofPlatform();
+        this.capacity = capacity;
+        this.maxBatchSize = maxBatchSize;
+        this.flushInterval = flushInterval;
+        this.maxAttempts = maxAttempts;
+        this.maxBackoff = maxBackoff;
+    }
+
+    // Returns false when the queue is full; the caller then writes synchronously
+    public boolean enqueue(long id, Operation operation) {
+        Key key = new Key(TenantContext.current(), id);
+        if (pending.size() >= capacity && !pending.containsKey(key)) {
+            wakeWriter();
+            return false;
+        }
+        pending.merge(key, operation, TaskWriteBehindQueue::merge);
+        // After the merge, so no reader sees the new version with the old overlay
+        dataVersion.bump();
+        if (pending.size() >= maxBatchSize) {
+            wakeWriter();
+        }
+        return true;
+    }
+
+    public Operation pendingOperation(long id) {
+        return pending.get(new Key(TenantContext.current(), id));
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    // Drops the current tenant's queued operations only, as a reset only deletes that tenant's tasks
+    public void clear() {
+        String tenant = TenantContext.current();
+        pending.keySet().removeIf(key -> key.tenant().equals(tenant));
+    }
+
+    /**
+     * Commits everything queued at the time of the call. Returns false if a batch failed, in which
+     * case its operations stay queued for the next attempt, unless that was its last attempt.
+     */
+    public boolean flush() {
+        flushLock.lock();
+        try {
+            int remaining = pending.size();
+            while (remaining > 0 && !pending.isEmpty()) {
+                Map<Key, Operation> batch = nextBatch();
+                Set<String> dropped = Set.of();
+                try {
+                    commit(batch);
+                } catch (RuntimeException e) {
+                    if (++failedAttempts < maxAttempts) {
+                        log.error("Write-behind batch of {} operations failed (attempt {} of {}), will retry",
+                                batch.size(), failedAttempts, maxAttempts, e);
+                        return false;
+                    }
+                    log.error("Write-behind batch of {} operations failed {} times, committing them one at a time",
+                            batch.size(), failedAttempts, e);
+                    dropped = commitEach(batch);
+                }
+                failedAttempts = 0;
+                // Only drop entries that were not superseded while the batch was committing
+                batch.forEach(pending::remove);
+                // Reads no longer overlay the dropped operations, so their tenants' data has changed back
+                dropped.forEach(tenant -> TenantContext.run(tenant, dataVersion::bump));
+                remaining -= batch.size();
+            }
+            return true;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Map<Key, Operation> nextBatch() {
+        Map<Key, Operation> batch = new HashMap<>();
+        for (Map.Entry<Key, Operation> entry : pending.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= maxBatchSize) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    private void commit(Map<Key, Operation> batch) {
+        Map<String, List<Long>> done = new HashMap<>();
+        Map<String, List<Long>> deleted = new HashMap<>();
+        batch.forEach((key, operation) -> (operation == Operation.DELETE ? deleted : done)
+                .computeIfAbsent(key.tenant(), tenant -> new ArrayList<>()).add(key.id()));
+        Set<String> tenants = new HashSet<>(done.keySet());
+        tenants.addAll(deleted.keySet());
+        // A tenant may live on another shard, so each gets its own transaction. Events published
+        // inside it reach the transactional listeners only once it has committed.
+        for (String tenant : tenants) {
+            TenantContext.run(tenant, () -> transactionTemplate.executeWithoutResult(status -> {
+                if (done.containsKey(tenant)) {
+                    taskRepository.markDoneEach(done.get(tenant)).forEach((id, outcome) -> {
+                        if (outcome == Outcome.DONE) {
+                            eventPublisher.publishEvent(TaskEvent.done(id));
+                        }
+                    });
+                }
+                if (deleted.containsKey(tenant)) {
+                    taskRepository.deleteEach(deleted.get(tenant)).forEach((id, outcome) -> {
+                        if (outcome == Outcome.DELETED) {
+                            eventPublisher.publishEvent(TaskEvent.deleted(id));
+                        }
+                    });
+                }
+            }));
+        }
+    }
+
+    /**
+     * Isolates the operations that keep a batch from committing; whatever still fails on its own is
+     * dropped. Returns the tenants that lost an operation.
+     */
+    private Set<String> commitEach(Map<Key, Operation> batch) {
+        Set<String> dropped = new HashSet<>();
+        batch.forEach((key, operation) -> {
+            try {
+                commit(Map.of(key, operation));
+            } catch (RuntimeException e) {
+                log.error("Dropping write-behind {} of task {} for tenant {}", operation, key.id(), key.tenant(), e);
+                dropped.add(key.tenant());
+            }
+        });
+        return dropped;
+    }
+
+    private static Operation merge(Operation queued, Operation next) {
+        return queued == Operation.DELETE || next == Operation.DELETE ? Operation.DELETE : Operation.DONE;
+    }
+
+    private void runWriter() {
+        long backoff = flushInterval.toNanos();
+        while (running) {
+            LockSupport.parkNanos(backingOff ? backoff : flushInterval.toNanos());
+            if (pending.isEmpty()) {
+                continue;
+            }
+            if (flush()) {
+                backingOff = false;
+                backoff = flushInterval.toNanos();
+            } else {
+                // Doubles from the flush interval; a full queue does not wake the writer early meanwhile
+                backoff = backingOff ? Math.min(backoff * 2, maxBackoff.toNanos()) : backoff;
+                backingOff = true;
+            }
+        }
+    }
+
+    private void wakeWriter() {
+        Thread current = writer;
+        if (current != null && !backingOff) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = threadBuilder.name("task-write-behind").start(this::runWriter);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // The web server has already stopped, so nothing new arrives while we drain
+        while (!pending.isEmpty()) {
+            if (!flush()) {
+                log.error("Dropping {} write-behind operations on shutdown", pending.size());
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Start before and stop after the embedded web server
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,79 @@
+package com.createfuture.training.taskmanager.tenant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * The task databases of a sharded deployment and the {@link TenantShardRouter} that assigns
+ * tenants to them. Request handling only ever touches the current tenant's shard through
+ * {@link TenantRoutingDataSource}; {@link #fanOut(Function)} is for admin reads across all tenants.
+ */
+public class TaskShards implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskShards.class);
+
+    private final List<DataSource> dataSources;
+    private final List<JdbcTemplate> templates;
+    private final TenantShardRouter router;
+    private final ExecutorService fanOutExecutor;
+
+    public TaskShards(List<DataSource> dataSources, ExecutorService fanOutExecutor) {
+        this.dataSources = List.copyOf(dataSources);
+        this.templates = this.dataSources.stream().map(JdbcTemplate::new).toList();
+        this.router = new TenantShardRouter(dataSources.size());
+        this.fanOutExecutor = fanOutExecutor;
+    }
+
+    public int size() {
+        return dataSources.size();
+    }
+
+    public DataSource dataSource(int shard) {
+        return dataSources.get(shard);
+    }
+
+    public int shardOf(String tenant) {
+        return router.shardOf(tenant);
+    }
+
+    /**
+     * Runs {@code query} against every shard in parallel and returns the results in shard order.
+     */
+    public <T> List<T> fanOut(Function<JdbcTemplate, T> query) {
+        List<CompletableFuture<T>> pending = new ArrayList<>(templates.size());
+        for (JdbcTemplate template : templates) {
+            pending.add(CompletableFuture.supplyAsync(() -> query.apply(template), fanOutExecutor));
+        }
+        try {
+            return pending.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        fanOutExecutor.shutdown();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Could not close shard data source {}", dataSource, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.createfuture.training.taskmanager.tenant;
+
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * The tenant the current thread acts for. {@link TenantFilter} sets it for each request; code that
+ * works for a tenant off the request thread (the write-behind writer, benchmarks) uses
+ * {@link #enter(String)}. Without a tenant the {@link #DEFAULT_TENANT} is used, so
+ * single-tenant deployments never have to set one.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final Pattern VALID_TENANT = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]{0,63}");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant == null ? DEFAULT_TENANT : tenant;
+    }
+
+    public static boolean isValid(String tenant) {
+        return tenant != null && VALID_TENANT.matcher(tenant).matches();
+    }
+
+    /**
+     * Makes {@code tenant} current until the returned scope is closed, then restores the previous one.
+     */
+    public static Scope enter(String tenant) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public static <T> T call(String tenant, Supplier<T> action) {
+        try (Scope ignored = enter(tenant)) {
+            return action.get();
+        }
+    }
+
+    public static void run(String tenant, Runnable action) {
+        call(tenant, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // Cache key for a task id; ids are only unique within a shard, so the tenant is part of the key
+    public static String cacheKey(Long id) {
+        return current() + ":" + id;
+    }
+}
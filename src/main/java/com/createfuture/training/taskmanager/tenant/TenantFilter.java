@@ -0,0 +1,52 @@
+package com.createfuture.training.taskmanager.tenant;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Resolves the tenant from the {@value #TENANT_HEADER} header and runs the request as that tenant.
+ * Only the jdbc engine stores a tenant per task, so the other engines reject any tenant but the
+ * default rather than silently sharing data.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TenantFilter extends OncePerRequestFilter {
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    private final boolean multiTenant;
+
+    public TenantFilter(@Value("${tasks.storage:jdbc}") String storage) {
+        this.multiTenant = "jdbc".equals(storage);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String tenant = request.getHeader(TENANT_HEADER);
+        if (tenant == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!TenantContext.isValid(tenant)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid " + TENANT_HEADER);
+            return;
+        }
+        if (!multiTenant && !TenantContext.DEFAULT_TENANT.equals(tenant)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Tenants need tasks.storage=jdbc");
+            return;
+        }
+        try (TenantContext.Scope ignored = TenantContext.enter(tenant)) {
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.createfuture.training.taskmanager.tenant;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections from the current tenant's shard. The shard is chosen when a connection is
+ * taken, which for a transaction is its start, so everything in it runs on one shard.
+ */
+public class TenantRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final TaskShards shards;
+
+    public TenantRoutingDataSource(TaskShards shards) {
+        this.shards = shards;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.dataSource(shard));
+        }
+        setTargetDataSources(targets);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return shards.shardOf(TenantContext.current());
+    }
+}
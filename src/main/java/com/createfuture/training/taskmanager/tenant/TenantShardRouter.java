@@ -0,0 +1,66 @@
+package com.createfuture.training.taskmanager.tenant;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring mapping tenants to shard numbers. Each shard owns {@code virtualNodes}
+ * points on the ring and a tenant belongs to the first point at or after its own hash, so adding a
+ * shard only moves about {@code 1 / (shards + 1)} of the tenants. Assignments are memoized, as the
+ * router is asked on every connection checkout, for up to {@value #MAX_MEMOIZED_TENANTS} tenants.
+ */
+public final class TenantShardRouter {
+
+    static final int DEFAULT_VIRTUAL_NODES = 128;
+    static final int MAX_MEMOIZED_TENANTS = 10_000;
+
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+    // Bounded: any well-formed X-Tenant-Id reaches the router
+    private final Cache<String, Integer> assignments = Caffeine.newBuilder().maximumSize(MAX_MEMOIZED_TENANTS).build();
+    private final int shardCount;
+
+    public TenantShardRouter(int shardCount) {
+        this(shardCount, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public TenantShardRouter(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Need at least one shard and one virtual node per shard");
+        }
+        this.shardCount = shardCount;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(String tenant) {
+        return assignments.get(tenant, key -> {
+            Map.Entry<Long, Integer> owner = ring.ceilingEntry(hash(key));
+            return (owner != null ? owner : ring.firstEntry()).getValue();
+        });
+    }
+
+    // First 8 bytes of MD5: not for security, just a well-spread hash that is stable across JVMs
+    static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is required on every Java platform", e);
+        }
+    }
+}
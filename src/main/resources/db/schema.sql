@@ -0,0 +1,39 @@
+CREATE TABLE IF NOT EXISTS tasks (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    done BOOLEAN NOT NULL,
+    title VARCHAR(255),
+    priority INTEGER DEFAULT 0 NOT NULL,
+    due_date DATE,
+    tenant VARCHAR(64) DEFAULT 'default' NOT NULL,
+    done_at TIMESTAMP(6) WITH TIME ZONE,
+    version BIGINT DEFAULT 0 NOT NULL
+);
+
+-- Databases created before tenants existed: their tasks all belong to the default tenant
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS tenant VARCHAR(64) DEFAULT 'default' NOT NULL;
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS priority INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS due_date DATE;
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS done_at TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+-- Tasks finished before done_at existed start ageing from the upgrade
+UPDATE tasks SET done_at = CURRENT_TIMESTAMP WHERE done = true AND done_at IS NULL;
+
+DROP INDEX IF EXISTS idx_tasks_done_id;
+CREATE INDEX IF NOT EXISTS idx_tasks_tenant_done_id ON tasks (tenant, done, id);
+-- Same order as Task.BY_RANK, so the top open tasks are the first rows of the index
+CREATE INDEX IF NOT EXISTS idx_tasks_tenant_rank ON tasks (tenant, done, priority DESC, due_date NULLS LAST, id);
+-- Only done tasks have a done_at, so the archiver's range scan never sees open ones
+CREATE INDEX IF NOT EXISTS idx_tasks_done_at ON tasks (done_at);
+
+-- Done tasks moved out of the hot table by TaskArchiver; ids keep their value from tasks
+CREATE TABLE IF NOT EXISTS tasks_archive (
+    id BIGINT PRIMARY KEY,
+    tenant VARCHAR(64) NOT NULL,
+    title VARCHAR(255),
+    priority INTEGER DEFAULT 0 NOT NULL,
+    due_date DATE,
+    done_at TIMESTAMP(6) WITH TIME ZONE,
+    version BIGINT DEFAULT 0 NOT NULL
+);
+ALTER TABLE tasks_archive ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_tasks_archive_tenant_id ON tasks_archive (tenant, id);
@@ -0,0 +1,48 @@
+package com.createfuture.training.taskmanager;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentProfileTest {
+
+    @TempDir
+    private Path dataDir;
+
+    @Test
+    void persistentProfile_ShouldKeepTasksAcrossRestarts() {
+        Task created;
+        try (ConfigurableApplicationContext context = start()) {
+            assertTrue(context.getEnvironment().getRequiredProperty("spring.datasource.url")
+                    .startsWith("jdbc:h2:file:" + dataDir));
+            assertNotNull(context.getBean(TaskRepositoryWarmup.class));
+            assertEquals(ReadinessState.ACCEPTING_TRAFFIC,
+                    context.getBean(ApplicationAvailability.class).getReadinessState());
+            created = context.getBean(TaskService.class).addTask("Survives a restart");
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertTrue(context.getBean(TaskService.class).getAllTasks().stream()
+                    .anyMatch(task -> task.getId().equals(created.getId())));
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(TaskManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("persistent")
+                // As command-line arguments, so they win over application-persistent.properties
+                .run("--spring.datasource.url=jdbc:h2:file:" + dataDir.resolve("tasksdb") + ";LAZY_QUERY_EXECUTION=1",
+                        "--tasks.warmup.iterations=5");
+    }
+}
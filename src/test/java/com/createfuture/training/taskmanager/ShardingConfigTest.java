@@ -0,0 +1,107 @@
+package com.createfuture.training.taskmanager;
+
+import com.createfuture.training.taskmanager.service.TaskService;
+import com.createfuture.training.taskmanager.tenant.TaskShards;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import com.createfuture.training.taskmanager.tenant.TenantFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "tasks.sharding.enabled=true",
+        "tasks.sharding.urls=jdbc:h2:mem:sharding-test-0,jdbc:h2:mem:sharding-test-1",
+        "tasks.sharding.pool-size=2",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureMockMvc
+class ShardingConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskShards shards;
+
+    @Autowired
+    private TaskService taskService;
+
+    @AfterEach
+    void tearDown() {
+        for (String tenant : List.of(TenantContext.DEFAULT_TENANT, tenantOn(0), tenantOn(1))) {
+            TenantContext.run(tenant, taskService::resetTasks);
+        }
+    }
+
+    @Test
+    void tenantRequests_ShouldOnlyTouchTheOwningShard() throws Exception {
+        String first = tenantOn(0);
+        String second = tenantOn(1);
+
+        create(first, "First tenant task");
+        create(second, "Second tenant task");
+
+        assertTrue(tenantsOn(0).contains(first));
+        assertFalse(tenantsOn(0).contains(second));
+        assertTrue(tenantsOn(1).contains(second));
+        assertFalse(tenantsOn(1).contains(first));
+        mockMvc.perform(get("/api/tasks").header(TenantFilter.TENANT_HEADER, second))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title").value("Second tenant task"));
+    }
+
+    @Test
+    void adminListing_ShouldFanOutToEveryShard() throws Exception {
+        String first = tenantOn(0);
+        String second = tenantOn(1);
+        create(first, "First tenant task");
+        create(second, "Second tenant task");
+
+        mockMvc.perform(get("/api/admin/tasks"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$." + first + "[0].title").value("First tenant task"))
+                .andExpect(jsonPath("$." + second + "[0].title").value("Second tenant task"));
+    }
+
+    @Test
+    void invalidTenant_ShouldBeRejected() throws Exception {
+        mockMvc.perform(get("/api/tasks").header(TenantFilter.TENANT_HEADER, "../etc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void create(String tenant, String title) throws Exception {
+        mockMvc.perform(post("/api/tasks").header(TenantFilter.TENANT_HEADER, tenant)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"" + title + "\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private List<String> tenantsOn(int shard) {
+        return new JdbcTemplate(shards.dataSource(shard))
+                .queryForList("SELECT DISTINCT tenant FROM tasks ORDER BY tenant", String.class);
+    }
+
+    // The first tenant named "tenant-N" that the ring places on the shard
+    private String tenantOn(int shard) {
+        int n = 0;
+        while (shards.shardOf("tenant-" + n) != shard) {
+            n++;
+        }
+        return "tenant-" + n;
+    }
+}
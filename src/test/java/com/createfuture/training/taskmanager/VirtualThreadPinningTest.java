@@ -0,0 +1,57 @@
+package com.createfuture.training.taskmanager;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadPinningTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void requestPath_ShouldNotPinCarrierThreads() throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            ResponseEntity<Map> created = restTemplate.postForEntity("/api/tasks", Map.of("title", "Pinned?"), Map.class);
+            assertEquals(HttpStatus.CREATED, created.getStatusCode());
+            Object id = created.getBody().get("id");
+
+            restTemplate.postForEntity("/api/tasks/batch", List.of("A", "B", "C"), List.class);
+            restTemplate.getForEntity("/api/tasks", List.class);
+            restTemplate.getForEntity("/api/tasks?limit=2", List.class);
+            restTemplate.getForEntity("/api/tasks/top?n=2", List.class);
+            restTemplate.getForEntity("/api/tasks/export", String.class);
+            restTemplate.exchange("/api/tasks/" + id, HttpMethod.PUT, new HttpEntity<>(Map.of("title", "Renamed")), Map.class);
+            restTemplate.exchange("/api/tasks/" + id + "/done", HttpMethod.PATCH, null, Void.class);
+            restTemplate.delete("/api/tasks/" + id);
+            restTemplate.getForEntity("/", String.class);
+
+            // Give the stream a chance to deliver buffered events before stopping
+            TimeUnit.SECONDS.sleep(2);
+        }
+
+        assertTrue(pinned.isEmpty(), () -> "Carrier threads were pinned:\n" + pinned);
+    }
+}
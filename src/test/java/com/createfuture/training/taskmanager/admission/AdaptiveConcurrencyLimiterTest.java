@@ -0,0 +1,77 @@
+package com.createfuture.training.taskmanager.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void tryAcquire_ShouldRefuseBeyondTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofMillis(50));
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(FAST, 0);
+        assertEquals(1, limiter.inFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void release_ShouldShrinkOncePerTargetIntervalWhileWritesAreSlow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 2, 100, Duration.ofMillis(50));
+        long now = 0;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        limiter.release(SLOW, now);
+        limiter.release(SLOW, now + 1);
+        assertEquals(12, limiter.limit());
+
+        limiter.release(SLOW, now + TARGET);
+        assertEquals(9, limiter.limit());
+
+        for (int round = 2; round < 20; round++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW, now + round * TARGET);
+        }
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void release_ShouldGrowByOnePerLimitOfFastWritesWhileBusy() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5, Duration.ofMillis(50));
+
+        for (int write = 0; write < 4; write++) {
+            fillAndDrain(limiter, 4);
+        }
+        assertEquals(5, limiter.limit());
+
+        // An idle limiter has no evidence that more concurrency would help
+        AdaptiveConcurrencyLimiter idle = new AdaptiveConcurrencyLimiter(4, 1, 10, Duration.ofMillis(50));
+        for (int write = 0; write < 100; write++) {
+            idle.tryAcquire();
+            idle.release(FAST, 0);
+        }
+        assertEquals(4, idle.limit());
+    }
+
+    private static void fillAndDrain(AdaptiveConcurrencyLimiter limiter, int permits) {
+        for (int i = 0; i < permits; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < permits; i++) {
+            limiter.release(FAST, 0);
+        }
+    }
+}
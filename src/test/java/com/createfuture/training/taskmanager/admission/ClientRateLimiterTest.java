@@ -0,0 +1,75 @@
+package com.createfuture.training.taskmanager.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenRefillAtRate() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 3, 100, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("script"));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire("script"));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, limiter.tryAcquire("script"));
+        assertTrue(limiter.tryAcquire("script") > 0);
+
+        // An idle second refills the bucket, but never beyond the burst
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("script"));
+        }
+        assertTrue(limiter.tryAcquire("script") > 0);
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepClientsApart() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 100, now::get);
+
+        assertEquals(0, limiter.tryAcquire("script"));
+        assertTrue(limiter.tryAcquire("script") > 0);
+        assertEquals(0, limiter.tryAcquire("browser"));
+    }
+
+    @Test
+    void tryAcquire_ShouldNeverAdmitMoreThanTheBurstConcurrently() throws Exception {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 500, 100, now::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> threads = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                threads.add(executor.submit(() -> {
+                    int admitted = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        if (limiter.tryAcquire("script") == 0) {
+                            admitted++;
+                        }
+                    }
+                    return admitted;
+                }));
+            }
+            int admitted = 0;
+            for (Future<Integer> thread : threads) {
+                admitted += thread.get();
+            }
+            assertEquals(500, admitted);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.createfuture.training.taskmanager.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAdmissionFilterTest {
+
+    private static final String PROXY = "10.0.0.1";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldRejectClientOverItsRateWithRetryAfter() throws Exception {
+        WriteAdmissionFilter filter = filter(new ClientRateLimiter(0.5, 1, 100),
+                new AdaptiveConcurrencyLimiter(10, 1, 10, Duration.ofMillis(50)));
+
+        assertEquals(200, post(filter, "192.0.2.1").getStatus());
+        MockHttpServletResponse rejected = post(filter, "192.0.2.1");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, post(filter, "192.0.2.2").getStatus());
+
+        assertEquals(2, registry.counter("tasks.admission.decisions", "outcome", "admitted").count());
+        assertEquals(1, registry.counter("tasks.admission.decisions", "outcome", "rate_limited").count());
+    }
+
+    @Test
+    void shouldIgnoreTheClientHeaderFromUntrustedAddresses() throws Exception {
+        WriteAdmissionFilter filter = filter(new ClientRateLimiter(0.5, 2, 100),
+                new AdaptiveConcurrencyLimiter(10, 1, 10, Duration.ofMillis(50)));
+
+        assertEquals(200, post(filter, "192.0.2.1", "first").getStatus());
+        assertEquals(200, post(filter, "192.0.2.1", "second").getStatus());
+        // A new header value is no new bucket
+        assertEquals(429, post(filter, "192.0.2.1", "third").getStatus());
+    }
+
+    @Test
+    void shouldKeyOnTheClientHeaderSetByATrustedProxy() throws Exception {
+        WriteAdmissionFilter filter = filter(new ClientRateLimiter(0.5, 1, 100),
+                new AdaptiveConcurrencyLimiter(10, 1, 10, Duration.ofMillis(50)));
+
+        assertEquals(200, post(filter, PROXY, "198.51.100.7").getStatus());
+        assertEquals(429, post(filter, PROXY, "198.51.100.7").getStatus());
+        assertEquals(200, post(filter, PROXY, "198.51.100.8").getStatus());
+        // Only the entry the proxy appended counts, not what the client put in front of it
+        assertEquals(429, post(filter, PROXY, "203.0.113.9, 198.51.100.8").getStatus());
+    }
+
+    @Test
+    void shouldRejectWritesBeyondTheConcurrencyLimit() throws Exception {
+        AdaptiveConcurrencyLimiter concurrency = new AdaptiveConcurrencyLimiter(1, 1, 10, Duration.ofMillis(50));
+        WriteAdmissionFilter filter = filter(new ClientRateLimiter(1000, 1000, 100), concurrency);
+        assertTrue(concurrency.tryAcquire());
+
+        MockHttpServletResponse rejected = post(filter, "192.0.2.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, registry.counter("tasks.admission.decisions", "outcome", "overloaded").count());
+        assertEquals(1, registry.get("tasks.admission.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void shouldAlwaysPassReads() throws Exception {
+        WriteAdmissionFilter filter = filter(new ClientRateLimiter(0.001, 1, 100),
+                new AdaptiveConcurrencyLimiter(1, 1, 1, Duration.ofMillis(50)));
+
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/tasks"), response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    private WriteAdmissionFilter filter(ClientRateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        return new WriteAdmissionFilter(rateLimiter, concurrencyLimiter, "X-Client-Id", Set.of(PROXY), registry);
+    }
+
+    private static MockHttpServletResponse post(WriteAdmissionFilter filter, String address) throws Exception {
+        return post(filter, address, null);
+    }
+
+    private static MockHttpServletResponse post(WriteAdmissionFilter filter, String address, String clientHeader)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/tasks");
+        request.setRemoteAddr(address);
+        if (clientHeader != null) {
+            request.addHeader("X-Client-Id", clientHeader);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -1,19 +1,28 @@
 package com.createfuture.training.taskmanager.controller;
 
 import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.service.TaskDataVersion;
+import com.createfuture.training.taskmanager.service.TaskEvent;
 import com.createfuture.training.taskmanager.service.TaskService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -21,6 +30,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(TaskController.class)
+@Import({TaskDataVersion.class, TaskListCache.class, TaskCodecs.class, SimpleMeterRegistry.class})
 public class TaskControllerTest {
 
     @Autowired
@@ -29,12 +39,17 @@ public class TaskControllerTest {
     @MockitoBean
     private TaskService taskService;
 
+    @Autowired
+    private TaskDataVersion taskDataVersion;
+
     private Task sampleTask;
 
     @BeforeEach
     void setUp() {
+        // Fragments cached by earlier tests belong to stubs that no longer apply
+        taskDataVersion.onTaskEvent(TaskEvent.reset());
         sampleTask = new Task("Test Task");
-        when(taskService.getAllTasks()).thenReturn(Arrays.asList(sampleTask));
+        when(taskService.getOpenTasks(isNull(), anyInt())).thenReturn(Arrays.asList(sampleTask));
     }
 
     @Test
@@ -42,7 +57,36 @@ public class TaskControllerTest {
         mockMvc.perform(get("/"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("tasks"))
-                .andExpect(content().string(containsString("Test Task")));
+                .andExpect(content().string(containsString("Test Task")))
+                .andExpect(content().string(not(containsString("Next page"))));
+    }
+
+    @Test
+    void getHomePage_WithFullPage_LinksToNextPage() throws Exception {
+        when(taskService.getOpenTasks(10L, TaskController.PAGE_SIZE)).thenReturn(
+                LongStream.rangeClosed(11, 10 + TaskController.PAGE_SIZE)
+                        .mapToObj(id -> new Task(id, "Task " + id))
+                        .toList());
+
+        mockMvc.perform(get("/").param("afterId", "10"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("/?afterId=" + (10 + TaskController.PAGE_SIZE))));
+    }
+
+    @Test
+    void getHomePage_ShouldReuseRenderedListUntilDataChanges() throws Exception {
+        mockMvc.perform(get("/")).andExpect(content().string(containsString("Test Task")));
+        mockMvc.perform(get("/")).andExpect(content().string(containsString("Test Task")));
+        verify(taskService, times(1)).getOpenTasks(isNull(), anyInt());
+
+        taskDataVersion.onTaskEvent(TaskEvent.done(1L));
+        when(taskService.getOpenTasks(isNull(), anyInt())).thenReturn(Arrays.asList(new Task("Fresh Task")));
+
+        mockMvc.perform(get("/"))
+                .andExpect(content().string(containsString("Fresh Task")))
+                .andExpect(content().string(not(containsString("Test Task"))))
+                .andExpect(content().string(containsString("<h1>Task Manager</h1>")));
+        verify(taskService, times(2)).getOpenTasks(isNull(), anyInt());
     }
 
     @Test
@@ -52,7 +96,7 @@ public class TaskControllerTest {
                 .andExpect(status().is3xxRedirection())
                 .andExpect(redirectedUrl("/"));
 
-        verify(taskService).addTask(Mockito.argThat(title -> title.equals("New Task")));
+        verify(taskService).addTask(Mockito.<String>argThat(title -> title.equals("New Task")));
     }
 
     @Test
@@ -0,0 +1,183 @@
+package com.createfuture.training.taskmanager.controller;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.service.TaskEvent;
+import com.createfuture.training.taskmanager.service.TaskService;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "tasks.stream.buffer-size=2",
+        "tasks.stream.heartbeat-interval=1h",
+        "tasks.stream.send-timeout=1s"
+})
+class TaskEventBroadcasterTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskEventBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        taskService.resetTasks();
+    }
+
+    @Test
+    @Timeout(30)
+    void stream_ShouldPushTaskEventsToSubscribers() throws Exception {
+        int before = broadcaster.subscriberCount();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/tasks/stream")).build();
+        // Wait until the subscription is registered before publishing
+        CompletableFuture<HttpResponse<InputStream>> response =
+                HttpClient.newHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        while (broadcaster.subscriberCount() == before) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        Task task = taskService.addTask("Streamed task");
+
+        assertEquals(200, response.get().statusCode());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.get().body(), StandardCharsets.UTF_8))) {
+            assertEquals("event:created", readUntil(reader, "event:"));
+            String data = readUntil(reader, "data:");
+            assertTrue(data.contains("\"id\":" + task.getId()), data);
+            assertTrue(data.contains("Streamed task"), data);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void slowSubscriber_ShouldDropOldestEventsWhenBufferIsFull() throws Exception {
+        BlockingEmitter emitter = new BlockingEmitter();
+        broadcaster.subscribe(emitter);
+
+        // The initial heartbeat is picked up by the dispatcher and blocks in send()
+        assertTrue(emitter.sending.await(5, TimeUnit.SECONDS));
+        for (long id = 1; id <= 5; id++) {
+            broadcaster.onTaskEvent(TaskEvent.done(id));
+        }
+        emitter.release.countDown();
+
+        // Heartbeat plus the two newest events; the three oldest were dropped
+        assertTrue(emitter.awaitSends(3));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(3, emitter.sent.size());
+    }
+
+    @Test
+    @Timeout(30)
+    void subscriber_ShouldOnlyReceiveItsOwnTenantsEvents() throws Exception {
+        BlockingEmitter emitter = new BlockingEmitter();
+        emitter.release.countDown();
+        TenantContext.run("acme", () -> broadcaster.subscribe(emitter));
+        assertTrue(emitter.awaitSends(1));
+
+        broadcaster.onTaskEvent(TaskEvent.done(1L));
+        TenantContext.run("acme", () -> broadcaster.onTaskEvent(TaskEvent.done(2L)));
+
+        // The heartbeat plus acme's event only
+        assertTrue(emitter.awaitSends(2));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(2, emitter.sent.size());
+    }
+
+    @Test
+    @Timeout(30)
+    void stalledSubscriber_ShouldBeDisconnectedWithoutHoldingUpOthers() throws Exception {
+        int before = broadcaster.subscriberCount();
+        List<BlockingEmitter> stalled = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            BlockingEmitter emitter = new BlockingEmitter();
+            broadcaster.subscribe(emitter);
+            assertTrue(emitter.sending.await(5, TimeUnit.SECONDS));
+            stalled.add(emitter);
+        }
+        try {
+            BlockingEmitter healthy = new BlockingEmitter();
+            healthy.release.countDown();
+            broadcaster.subscribe(healthy);
+
+            broadcaster.onTaskEvent(TaskEvent.done(1L));
+
+            // Heartbeat and event arrive while every other subscriber is stuck in send()
+            assertTrue(healthy.awaitSends(2));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (broadcaster.subscriberCount() > before + 1 && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            assertEquals(before + 1, broadcaster.subscriberCount());
+            broadcaster.onTaskEvent(TaskEvent.done(2L));
+            assertTrue(healthy.awaitSends(3));
+        } finally {
+            stalled.forEach(emitter -> emitter.release.countDown());
+        }
+    }
+
+    private static String readUntil(BufferedReader reader, String prefix) throws Exception {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        fail("Stream ended before a line starting with " + prefix);
+        return null;
+    }
+
+    private static class BlockingEmitter extends SseEmitter {
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<SseEventBuilder> sent = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (sent) {
+                sent.add(builder);
+                sent.notifyAll();
+            }
+        }
+
+        boolean awaitSends(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            synchronized (sent) {
+                while (sent.size() < count && System.currentTimeMillis() < deadline) {
+                    sent.wait(100);
+                }
+                return sent.size() >= count;
+            }
+        }
+    }
+}
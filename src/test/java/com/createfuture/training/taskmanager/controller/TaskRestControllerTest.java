@@ -1,25 +1,56 @@
 package com.createfuture.training.taskmanager.controller;
 
 import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskBulkResult;
+import com.createfuture.training.taskmanager.model.TaskBulkResult.Outcome;
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import com.createfuture.training.taskmanager.model.TaskSelector;
+import com.createfuture.training.taskmanager.service.TaskDataVersion;
+import com.createfuture.training.taskmanager.service.TaskEvent;
+import com.createfuture.training.taskmanager.service.TaskSearchIndex;
 import com.createfuture.training.taskmanager.service.TaskService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.util.Arrays;
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(TaskRestController.class)
+@Import({TaskDataVersion.class, TaskListCache.class, TaskCodecs.class, SimpleMeterRegistry.class})
 class TaskRestControllerTest {
 
     @Autowired
@@ -28,19 +59,265 @@ class TaskRestControllerTest {
     @MockitoBean
     private TaskService taskService;
 
+    @MockitoBean
+    private TaskSearchIndex taskSearchIndex;
+
+    @MockitoBean
+    private TaskEventBroadcaster taskEventBroadcaster;
+
+    @Autowired
+    private TaskDataVersion taskDataVersion;
+
+    @BeforeEach
+    void newDataVersion() {
+        // Bodies cached by earlier tests belong to stubs that no longer apply
+        taskDataVersion.onTaskEvent(TaskEvent.reset());
+    }
+
     @Test
     @DisplayName("GET /api/tasks should return all tasks")
     void shouldReturnAllTasks() throws Exception {
-        List<Task> mockTasks = Arrays.asList(new Task("Task 1"), new Task("Task 2"));
-        when(taskService.getAllTasks()).thenReturn(mockTasks);
+        TaskColumns mockTasks = TaskColumns.builder(2)
+                .add(1L, "Task 1", false)
+                .add(2L, "Task 2", false)
+                .build();
+        when(taskService.getOpenTaskColumns()).thenReturn(mockTasks);
 
         mockMvc.perform(get("/api/tasks"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].id", is(1)))
                 .andExpect(jsonPath("$[0].title", is("Task 1")))
+                .andExpect(jsonPath("$[0].done", is(false)))
                 .andExpect(jsonPath("$[1].title", is("Task 2")));
     }
 
+    @Test
+    @DisplayName("GET /api/tasks should answer a matching If-None-Match with 304 without calling the service")
+    void shouldReturnNotModifiedForCurrentVersion() throws Exception {
+        when(taskService.getOpenTaskColumns()).thenReturn(TaskColumns.builder(1).add(1L, "Task 1", false).build());
+        String etag = mockMvc.perform(get("/api/tasks"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/tasks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/tasks/top").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        verify(taskService, times(1)).getOpenTaskColumns();
+        verifyNoMoreInteractions(taskService);
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks should serve a new body and ETag once the data version moves")
+    void shouldServeFreshBodyAfterMutation() throws Exception {
+        when(taskService.getOpenTaskColumns())
+                .thenReturn(TaskColumns.builder(1).add(1L, "Before", false).build())
+                .thenReturn(TaskColumns.builder(1).add(1L, "After", false).build());
+        String etag = mockMvc.perform(get("/api/tasks"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // A second client without a tag shares the cached serialization
+        mockMvc.perform(get("/api/tasks")).andExpect(jsonPath("$[0].title", is("Before")));
+
+        taskDataVersion.onTaskEvent(TaskEvent.updated(new Task(1L, "After")));
+
+        mockMvc.perform(get("/api/tasks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$[0].title", is("After")));
+        verify(taskService, times(2)).getOpenTaskColumns();
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks?afterId=&limit= should return a page with the next cursor")
+    void shouldReturnPageOfTasks() throws Exception {
+        List<Task> page = List.of(new Task(11L, "Task 11"), new Task(12L, "Task 12"));
+        when(taskService.getOpenTasks(10L, 2)).thenReturn(page);
+
+        mockMvc.perform(get("/api/tasks?afterId=10&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TaskRestController.NEXT_AFTER_ID_HEADER, "12"))
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].id", is(11)));
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks?limit= should send a weak ETag and vary like the unpaged list")
+    void shouldSendWeakTagAndVaryOnPage() throws Exception {
+        when(taskService.getOpenTasks(null, 5)).thenReturn(List.of(new Task(1L, "Only Task")));
+
+        String etag = mockMvc.perform(get("/api/tasks?limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/\"")))
+                .andExpect(header().stringValues(HttpHeaders.VARY,
+                        hasItems(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, "X-Tenant-Id")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/tasks?limit=5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(taskService, times(1)).getOpenTasks(null, 5);
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks?limit= should omit the next cursor on the last page")
+    void shouldOmitCursorOnLastPage() throws Exception {
+        when(taskService.getOpenTasks(null, 5)).thenReturn(List.of(new Task(1L, "Only Task")));
+
+        mockMvc.perform(get("/api/tasks?limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(TaskRestController.NEXT_AFTER_ID_HEADER))
+                .andExpect(jsonPath("$.length()", is(1)));
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks?limit= above the maximum should still return the next cursor")
+    void shouldKeepPagingWhenLimitExceedsMaximum() throws Exception {
+        List<Task> page = LongStream.rangeClosed(1, TaskService.MAX_PAGE_SIZE)
+                .mapToObj(id -> new Task(id, "Task " + id)).toList();
+        when(taskService.getOpenTasks(null, TaskService.MAX_PAGE_SIZE)).thenReturn(page);
+
+        mockMvc.perform(get("/api/tasks?limit=5000"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TaskRestController.NEXT_AFTER_ID_HEADER, String.valueOf(TaskService.MAX_PAGE_SIZE)));
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks/history should page done tasks with the next cursor")
+    void shouldReturnPageOfTaskHistory() throws Exception {
+        List<Task> page = List.of(new Task(3L, "Task 3", true), new Task(7L, "Task 7", true));
+        when(taskService.getTaskHistory(null, 2)).thenReturn(page);
+
+        mockMvc.perform(get("/api/tasks/history?limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TaskRestController.NEXT_AFTER_ID_HEADER, "7"))
+                .andExpect(jsonPath("$[1].done", is(true)));
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks/history?limit= above the maximum should still return the next cursor")
+    void shouldKeepPagingHistoryWhenLimitExceedsMaximum() throws Exception {
+        List<Task> page = LongStream.rangeClosed(1, TaskService.MAX_PAGE_SIZE)
+                .mapToObj(id -> new Task(id, "Task " + id, true)).toList();
+        when(taskService.getTaskHistory(null, TaskService.MAX_PAGE_SIZE)).thenReturn(page);
+
+        mockMvc.perform(get("/api/tasks/history?limit=5000"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TaskRestController.NEXT_AFTER_ID_HEADER, String.valueOf(TaskService.MAX_PAGE_SIZE)));
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks/export?done=false should stream tasks as NDJSON")
+    @SuppressWarnings("unchecked")
+    void shouldExportTasksAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Task> action = invocation.getArgument(1);
+            action.accept(new Task(1L, "Task 1"));
+            action.accept(new Task(2L, "Task 2"));
+            return null;
+        }).when(taskService).exportTasks(eq(false), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/tasks/export?done=false"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"title\":\"Task 1\",\"done\":false,\"priority\":0,\"dueDate\":null,\"version\":0}\n"
+                                + "{\"id\":2,\"title\":\"Task 2\",\"done\":false,\"priority\":0,\"dueDate\":null,\"version\":0}\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks/export with Accept: application/cbor-seq should stream a CBOR sequence")
+    @SuppressWarnings("unchecked")
+    void shouldExportTasksAsCborSequence() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Task> action = invocation.getArgument(1);
+            action.accept(new Task(1L, "Task 1"));
+            action.accept(new Task(2L, "Task 2", true));
+            return null;
+        }).when(taskService).exportTasks(eq(null), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/tasks/export").accept(TaskCodecs.APPLICATION_CBOR_SEQ))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(TaskCodecs.APPLICATION_CBOR_SEQ))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (MappingIterator<Task> tasks = new CBORMapper().readerFor(Task.class).readValues(body)) {
+            List<Task> decoded = tasks.readAll();
+            assertEquals(List.of(1L, 2L), decoded.stream().map(Task::getId).toList());
+            assertTrue(decoded.get(1).isDone());
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks should negotiate CBOR and keep JSON as the default")
+    void shouldNegotiateCbor() throws Exception {
+        when(taskService.getOpenTaskColumns()).thenReturn(TaskColumns.builder(1).add(1L, "Task 1", false).build());
+
+        MvcResult cbor = mockMvc.perform(get("/api/tasks").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        String jsonEtag = mockMvc.perform(get("/api/tasks").accept(MediaType.ALL))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].title", is("Task 1")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Task[] decoded = new CBORMapper().readValue(cbor.getResponse().getContentAsByteArray(), Task[].class);
+        assertEquals("Task 1", decoded[0].getTitle());
+        assertNotEquals(jsonEtag, cbor.getResponse().getHeader(HttpHeaders.ETAG));
+        mockMvc.perform(get("/api/tasks/top").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks should send a precompressed body to gzip clients above the size threshold")
+    void shouldGzipLargeLists() throws Exception {
+        TaskColumns.Builder large = TaskColumns.builder(500);
+        for (long id = 1; id <= 500; id++) {
+            large.add(id, "Task " + id, false);
+        }
+        when(taskService.getOpenTaskColumns()).thenReturn(large.build());
+        when(taskService.getTopNTasks(1)).thenReturn(List.of(new Task(1L, "Small")));
+
+        MvcResult gzipped = mockMvc.perform(get("/api/tasks").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-gzip\"")))
+                .andReturn();
+        byte[] plain = mockMvc.perform(get("/api/tasks").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+        mockMvc.perform(get("/api/tasks/top?n=1").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$[0].title", is("Small")));
+
+        byte[] compressed = gzipped.getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+        assertTrue(compressed.length < plain.length / 3);
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks/search?q= should return ranked matches")
+    void shouldSearchTasks() throws Exception {
+        when(taskSearchIndex.search("feed do", 0, 20)).thenReturn(List.of(new Task(3L, "Feed the dog")));
+
+        mockMvc.perform(get("/api/tasks/search").param("q", "feed do"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].title", is("Feed the dog")));
+    }
+
     @Test
     @DisplayName("GET /api/tasks/top?n=1 should return top N tasks")
     void shouldReturnTopNTasks() throws Exception {
@@ -53,17 +330,74 @@ class TaskRestControllerTest {
                 .andExpect(jsonPath("$[0].title", is("Top Task")));
     }
 
+    @Test
+    @DisplayName("GET /api/tasks/top should reject a negative n and cap a large one")
+    void shouldBoundTopN() throws Exception {
+        when(taskService.getTopNTasks(TaskService.MAX_PAGE_SIZE)).thenReturn(List.of(new Task("Top Task")));
+
+        mockMvc.perform(get("/api/tasks/top?n=-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tasks/top?n=" + Integer.MAX_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title", is("Top Task")));
+        verify(taskService).getTopNTasks(TaskService.MAX_PAGE_SIZE);
+    }
+
     @Test
     @DisplayName("POST /api/tasks should create a task")
     void shouldCreateTask() throws Exception {
-        Task newTask = new Task("New Task");
-        when(taskService.addTask("New Task")).thenReturn(newTask);
+        Task newTask = new Task(1L, "New Task", false, 2, LocalDate.of(2026, 10, 31));
+        when(taskService.addTask(argThat((Task draft) -> "New Task".equals(draft.getTitle())
+                && draft.getPriority() == 2 && LocalDate.of(2026, 10, 31).equals(draft.getDueDate()))))
+                .thenReturn(newTask);
 
         mockMvc.perform(post("/api/tasks")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content("{\"title\": \"New Task\"}"))
+                        .content("{\"title\": \"New Task\", \"priority\": 2, \"dueDate\": \"2026-10-31\"}"))
                 .andExpect(status().isCreated())
-                .andExpect(jsonPath("$.title", is("New Task")));
+                .andExpect(jsonPath("$.title", is("New Task")))
+                .andExpect(jsonPath("$.priority", is(2)))
+                .andExpect(jsonPath("$.dueDate", is("2026-10-31")));
+    }
+
+    @Test
+    @DisplayName("POST and PUT should reject due dates beyond four-digit years")
+    void shouldRejectOutOfRangeDueDates() throws Exception {
+        mockMvc.perform(post("/api/tasks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Far future\", \"dueDate\": \"+6000000-01-01\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/tasks/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Far past\", \"dueDate\": \"-0001-01-01\"}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoMoreInteractions(taskService);
+    }
+
+    @Test
+    @DisplayName("POST /api/tasks/batch should create all tasks")
+    void shouldCreateTasksInBatch() throws Exception {
+        List<Task> created = List.of(new Task(1L, "Task A"), new Task(2L, "Task B"));
+        when(taskService.addTasks(List.of("Task A", "Task B"))).thenReturn(created);
+
+        mockMvc.perform(post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"Task A\", \"Task B\"]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[1].id", is(2)));
+    }
+
+    @Test
+    @DisplayName("POST /api/tasks/batch should reject oversized batches")
+    void shouldRejectOversizedBatch() throws Exception {
+        String body = "[" + String.join(",", Collections.nCopies(TaskRestController.MAX_BATCH_SIZE + 1, "\"t\"")) + "]";
+
+        mockMvc.perform(post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isPayloadTooLarge());
     }
 
     @Test
@@ -84,11 +418,25 @@ class TaskRestControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("PATCH and DELETE should return 202 in write-behind mode")
+    void shouldAcceptMutationsInWriteBehindMode() throws Exception {
+        when(taskService.isWriteBehind()).thenReturn(true);
+        when(taskService.markDone(1L)).thenReturn(true);
+        when(taskService.deleteTask(1L)).thenReturn(true);
+
+        mockMvc.perform(patch("/api/tasks/1/done"))
+                .andExpect(status().isAccepted());
+        mockMvc.perform(delete("/api/tasks/1"))
+                .andExpect(status().isAccepted());
+    }
+
     @Test
     @DisplayName("PUT /api/tasks/{id} should update a task")
     void shouldUpdateTask() throws Exception {
         Task updatedTask = new Task(1L, "Updated Task");
-        when(taskService.updateTask(1L, "Updated Task")).thenReturn(updatedTask);
+        when(taskService.updateTask(eq(1L), argThat((Task changes) -> "Updated Task".equals(changes.getTitle()))))
+                .thenReturn(updatedTask);
 
         mockMvc.perform(put("/api/tasks/1")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -97,6 +445,53 @@ class TaskRestControllerTest {
                 .andExpect(jsonPath("$.title", is("Updated Task")));
     }
 
+    @Test
+    @DisplayName("PUT /api/tasks/{id} with If-Match should update in one step and return the new ETag")
+    void shouldUpdateTaskAtTheExpectedVersion() throws Exception {
+        Task updatedTask = new Task(1L, "Updated Task", false, 0, null, 4);
+        when(taskService.updateTask(eq(1L), any(Task.class), eq(3L))).thenReturn(updatedTask);
+
+        mockMvc.perform(put("/api/tasks/1")
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Updated Task\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.version", is(4)));
+        verify(taskService, times(0)).updateTask(eq(1L), any(Task.class));
+    }
+
+    @Test
+    @DisplayName("PUT /api/tasks/{id} should return 412 when the If-Match version is stale or not ours")
+    void shouldRejectStaleIfMatch() throws Exception {
+        when(taskService.updateTask(eq(1L), any(Task.class), eq(3L)))
+                .thenThrow(new OptimisticLockingFailureException("changed"));
+
+        mockMvc.perform(put("/api/tasks/1")
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Updated Task\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/tasks/1")
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Updated Task\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("GET /api/tasks/{id} should return the task with its version as ETag")
+    void shouldReturnTaskWithETag() throws Exception {
+        when(taskService.getTask(1L)).thenReturn(new Task(1L, "Task 1", false, 0, null, 7));
+
+        mockMvc.perform(get("/api/tasks/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(jsonPath("$.title", is("Task 1")));
+        mockMvc.perform(get("/api/tasks/2"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("PATCH /api/tasks/{id}/done should mark a task as done")
     void shouldMarkTaskAsDone() throws Exception {
@@ -105,4 +500,74 @@ class TaskRestControllerTest {
         mockMvc.perform(patch("/api/tasks/1/done"))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    @DisplayName("PATCH /api/tasks/done should report an outcome per id")
+    void shouldMarkTasksAsDoneInBulk() throws Exception {
+        Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+        outcomes.put(1L, Outcome.DONE);
+        outcomes.put(2L, Outcome.ALREADY_DONE);
+        outcomes.put(99L, Outcome.NOT_FOUND);
+        when(taskService.markDone(TaskSelector.ofIds(List.of(1L, 2L, 99L)), 0L)).thenReturn(TaskBulkResult.of(outcomes));
+
+        mockMvc.perform(patch("/api/tasks/done")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1, 2, 99]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched", is(3)))
+                .andExpect(jsonPath("$.changed", is(1)))
+                .andExpect(jsonPath("$.outcomes.2", is("ALREADY_DONE")))
+                .andExpect(jsonPath("$.outcomes.99", is("NOT_FOUND")));
+    }
+
+    @Test
+    @DisplayName("DELETE /api/tasks should delete the tasks matching a predicate")
+    void shouldDeleteTasksByPredicate() throws Exception {
+        when(taskService.deleteTasks(TaskSelector.matching(true, null), 0L))
+                .thenReturn(TaskBulkResult.of(Map.of(4L, Outcome.DELETED)));
+
+        mockMvc.perform(delete("/api/tasks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"done\": true}"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-After-Id"))
+                .andExpect(jsonPath("$.changed", is(1)))
+                .andExpect(jsonPath("$.outcomes.4", is("DELETED")));
+    }
+
+    @Test
+    @DisplayName("PATCH /api/tasks/done should hand back a cursor when a predicate hits the cap")
+    void shouldContinueACappedPredicateFromTheCursor() throws Exception {
+        when(taskService.markDone(TaskSelector.matching(false, null), 40L))
+                .thenReturn(TaskBulkResult.of(Map.of(41L, Outcome.DONE), 41L));
+
+        mockMvc.perform(patch("/api/tasks/done").param("afterId", "40")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"done\": false}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-After-Id", "41"))
+                .andExpect(jsonPath("$.nextAfterId").doesNotExist())
+                .andExpect(jsonPath("$.outcomes.41", is("DONE")));
+        mockMvc.perform(patch("/api/tasks/done").param("afterId", "40")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Bulk endpoints should reject empty, ambiguous and oversized selectors")
+    void shouldRejectInvalidSelectors() throws Exception {
+        String oversized = "{\"ids\": [" + String.join(",", Collections.nCopies(TaskRestController.MAX_BATCH_SIZE + 1, "1")) + "]}";
+
+        mockMvc.perform(delete("/api/tasks").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/tasks"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/tasks/done").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1], \"titlePrefix\": \"Sprint\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/tasks/done").contentType(MediaType.APPLICATION_JSON).content(oversized))
+                .andExpect(status().isPayloadTooLarge());
+        verifyNoMoreInteractions(taskService);
+    }
 }
@@ -0,0 +1,99 @@
+package com.createfuture.training.taskmanager.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskColumnsTest {
+
+    // Dates as ISO strings, like Boot's auto-configured mappers
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final List<Task> tasks = List.of(
+            new Task(1L, "Plain", false),
+            new Task(2L, "Quote \" and \\\\ backslash\\n", true),
+            new Task(3L, "Ünïcödé ✓ 🚀", false),
+            new Task(4L, null, true),
+            new Task(5L, "", false),
+            new Task(6L, "Ranked", false, 3, LocalDate.of(2026, 10, 17)),
+            new Task(7L, "Negative", true, -2, LocalDate.of(1969, 12, 31)));
+
+    @Test
+    void serialize_ShouldMatchTaskListJson() throws Exception {
+        TaskColumns columns = columnsOf(tasks);
+
+        String expected = objectMapper.writeValueAsString(tasks);
+
+        assertEquals(expected, new String(objectMapper.writeValueAsBytes(columns), StandardCharsets.UTF_8));
+        assertEquals(expected, objectMapper.writeValueAsString(columns));
+    }
+
+    @Test
+    void serialize_ShouldMatchTaskListCbor() throws Exception {
+        CBORMapper cborMapper = CBORMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        assertArrayEquals(cborMapper.writeValueAsBytes(tasks), cborMapper.writeValueAsBytes(columnsOf(tasks)));
+    }
+
+    @Test
+    void accessors_ShouldRoundTripEveryRow() {
+        TaskColumns columns = columnsOf(tasks);
+
+        assertEquals(tasks.size(), columns.size());
+        for (int row = 0; row < tasks.size(); row++) {
+            Task task = columns.task(row);
+            assertEquals(tasks.get(row).getId(), task.getId());
+            assertEquals(tasks.get(row).getTitle(), task.getTitle());
+            assertEquals(tasks.get(row).isDone(), task.isDone());
+            assertEquals(tasks.get(row).getPriority(), task.getPriority());
+            assertEquals(tasks.get(row).getDueDate(), task.getDueDate());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.id(tasks.size()));
+    }
+
+    @Test
+    void builder_ShouldGrowPastInitialCapacity() throws Exception {
+        List<Task> many = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            many.add(new Task(id, "Task number " + id + (id % 7 == 0 ? " é" : ""), id % 3 == 0));
+        }
+
+        assertEquals(objectMapper.writeValueAsString(many), objectMapper.writeValueAsString(columnsOf(many)));
+    }
+
+    @Test
+    void filter_ShouldKeepMatchingRowsOnly() {
+        TaskColumns columns = columnsOf(tasks);
+
+        TaskColumns odd = columns.filter(id -> id % 2 == 1);
+
+        assertSame(columns, columns.filter(id -> true));
+        assertEquals(4, odd.size());
+        assertEquals(List.of(1L, 3L, 5L, 7L), List.of(odd.id(0), odd.id(1), odd.id(2), odd.id(3)));
+        assertEquals(LocalDate.of(1969, 12, 31), odd.dueDate(3));
+        assertEquals("Ünïcödé ✓ 🚀", odd.title(1));
+        assertTrue(columns.filter(id -> false).isEmpty());
+    }
+
+    private static TaskColumns columnsOf(List<Task> tasks) {
+        TaskColumns.Builder builder = TaskColumns.builder(2);
+        tasks.forEach(builder::add);
+        return builder.build();
+    }
+}
@@ -0,0 +1,203 @@
+package com.createfuture.training.taskmanager.profiling;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.JdbcTaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementProfilerTest {
+
+    private EmbeddedDatabase database;
+    private StatementProfiler profiler;
+    private ProfilingDataSource dataSource;
+    private JdbcTaskRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/schema.sql")
+                .build();
+        profiler = new StatementProfiler(3, 1000);
+        dataSource = new ProfilingDataSource(database, profiler);
+        repository = new JdbcTaskRepository(new JdbcTemplate(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void normalize_ShouldReplaceLiteralsAndFoldLists() {
+        assertEquals("SELECT * FROM tasks WHERE id = ? AND tenant = ?",
+                SqlNormalizer.normalize("SELECT *\n  FROM tasks WHERE id = 42 AND tenant = 'it''s'"));
+        assertEquals("DELETE FROM tasks WHERE id IN (?, ...)",
+                SqlNormalizer.normalize("DELETE FROM tasks WHERE id IN (1, 2, 3)"));
+        assertEquals("DELETE FROM tasks WHERE id IN (?, ...)",
+                SqlNormalizer.normalize("DELETE FROM tasks WHERE id IN (?,?)"));
+        assertEquals("INSERT INTO t (a, b) VALUES (?, ...), ...",
+                SqlNormalizer.normalize("INSERT INTO t (a, b) VALUES (1, 'x'), (2, 'y'), (3, 'z')"));
+        // Digits inside identifiers and quoted identifiers are names, not values
+        assertEquals("SELECT col1 FROM \"Table 2\" WHERE x = ?",
+                SqlNormalizer.normalize("SELECT col1 FROM \"Table 2\" WHERE x = 1.5"));
+    }
+
+    @Test
+    void queries_ShouldBeCountedPerNormalizedStatementWithRows() {
+        List<Task> created = repository.addTasks(List.of("a", "b", "c"));
+        profiler.reset();
+
+        repository.findById(created.get(0).getId());
+        repository.findById(created.get(1).getId());
+        repository.findById(-1L);
+        repository.findAll();
+
+        StatementStatistics byId = statisticsOf("SELECT * FROM tasks WHERE id = ? AND tenant = ?");
+        assertEquals(3, byId.executions());
+        assertEquals(2, byId.rows());
+        assertEquals(0, byId.failures());
+        assertTrue(byId.totalMs() > 0);
+        assertEquals(byId.totalMs(), byId.executeMs() + byId.fetchMs(), 1e-6);
+        assertTrue(byId.maxMs() <= byId.totalMs());
+        assertEquals(3, statisticsOf("SELECT * FROM tasks WHERE tenant = ?").rows());
+    }
+
+    @Test
+    void updates_ShouldCountChangedRows() {
+        List<Task> created = repository.addTasks(List.of("a", "b", "c"));
+        profiler.reset();
+
+        repository.markDoneByIds(created.stream().map(Task::getId).toList());
+        repository.markDoneById(-1L);
+
+        StatementStatistics markDone = profiler.statistics(10).stream()
+                .filter(s -> s.sql().startsWith("UPDATE tasks SET done = true"))
+                .findFirst().orElseThrow();
+        // One batch and one single update
+        assertEquals(2, markDone.executions());
+        assertEquals(3, markDone.rows());
+    }
+
+    @Test
+    void failedStatement_ShouldBeCountedAsFailure() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String insert = "INSERT INTO tasks (id, done, title) VALUES (?, false, 'x')";
+        jdbcTemplate.update(insert, 1);
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(insert, 1));
+
+        StatementStatistics inserts = statisticsOf("INSERT INTO tasks (id, done, title) VALUES (?, false, ?)");
+        assertEquals(2, inserts.executions());
+        assertEquals(1, inserts.failures());
+        assertEquals(1, inserts.rows());
+    }
+
+    @Test
+    void slowest_ShouldKeepTheSlowestExecutionsWithTheirPlans() {
+        List<Task> created = repository.addTasks(List.of("a", "b", "c"));
+        profiler.reset();
+        for (int i = 0; i < 50; i++) {
+            repository.findById(created.get(i % 3).getId());
+            repository.findOpenAfter(0L, 10);
+        }
+
+        List<SlowStatement> slowest = profiler.slowest();
+        assertEquals(3, slowest.size());
+        for (int i = 1; i < slowest.size(); i++) {
+            assertTrue(slowest.get(i - 1).totalNanos() >= slowest.get(i).totalNanos());
+        }
+        SlowStatement statement = slowest.get(0);
+        String plan = dataSource.explain(statement);
+        assertNotNull(plan);
+        assertFalse(plan.startsWith("EXPLAIN failed"), plan);
+        assertTrue(plan.contains("FROM \"PUBLIC\".\"TASKS\""), plan);
+    }
+
+    @Test
+    void explain_ShouldPlanWithPlaceholdersAndSkipStatementsWithoutPlans() {
+        SlowStatement byId = new SlowStatement("SELECT * FROM tasks WHERE id = ? AND tenant = ?",
+                "SELECT * FROM tasks WHERE id = ? AND tenant = ?", "default", Instant.now(), 1, 1, 0, 0, false);
+        String plan = dataSource.explain(byId);
+        assertTrue(plan.contains("PRIMARY_KEY"), plan);
+        assertTrue(plan.contains("ID = ?1"), plan);
+
+        SlowStatement ddl = new SlowStatement("CREATE TABLE x (id INT)", "CREATE TABLE x (id INT)", "default",
+                Instant.now(), 1, 1, 0, 0, false);
+        assertNull(dataSource.explain(ddl));
+    }
+
+    @Test
+    void slowStatementBuffer_ShouldKeepTheTopKUnderConcurrentOffers() throws Exception {
+        SlowStatementBuffer buffer = new SlowStatementBuffer(8);
+        List<Long> durations = new ArrayList<>(LongStream.rangeClosed(1, 4000).boxed().toList());
+        Collections.shuffle(durations, ThreadLocalRandom.current());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> offers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                List<Long> share = durations.subList(thread * 1000, (thread + 1) * 1000);
+                offers.add(executor.submit(() -> share.forEach(nanos -> {
+                    if (buffer.admits(nanos)) {
+                        buffer.offer(slow(nanos));
+                    }
+                })));
+            }
+            for (Future<?> offer : offers) {
+                offer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(LongStream.rangeClosed(3993, 4000).boxed().sorted(Comparator.reverseOrder()).toList(),
+                buffer.slowest().stream().map(SlowStatement::totalNanos).toList());
+        assertTrue(buffer.admits(4001));
+
+        buffer.clear();
+        assertTrue(buffer.slowest().isEmpty());
+        assertTrue(buffer.admits(1));
+    }
+
+    @Test
+    void statementsPastTheLimit_ShouldBeCountedTogether() {
+        StatementProfiler small = new StatementProfiler(3, 2);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new ProfilingDataSource(database, small));
+        jdbcTemplate.queryForList("SELECT 1");
+        jdbcTemplate.queryForList("SELECT 1 FROM tasks");
+        jdbcTemplate.queryForList("SELECT 2 FROM tasks WHERE id = ?", 1);
+        jdbcTemplate.queryForList("SELECT 3 FROM tasks WHERE done = ?", true);
+
+        List<StatementStatistics> statistics = small.statistics(10);
+        assertEquals(3, statistics.size());
+        assertEquals(2, statistics.stream().filter(s -> s.sql().equals(StatementProfiler.OTHER_STATEMENTS))
+                .findFirst().orElseThrow().executions());
+    }
+
+    private StatementStatistics statisticsOf(String sql) {
+        return profiler.statistics(100).stream().filter(s -> s.sql().equals(sql)).findFirst().orElseThrow();
+    }
+
+    private static SlowStatement slow(long nanos) {
+        return new SlowStatement("SELECT ?", "SELECT 1", "default", Instant.now(), nanos, nanos, 0, 0, false);
+    }
+}
@@ -0,0 +1,32 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryTaskRepositoryTest extends TaskRepositoryContractTest {
+
+    @Override
+    protected TaskRepository createRepository() {
+        return new InMemoryTaskRepository();
+    }
+
+    @Test
+    void racingMarkDoneAndReopen_ShouldKeepTheOpenIndexInStep() {
+        List<Task> created = repository.addTasks(List.of("a", "b", "c", "d"));
+        for (int round = 0; round < 2000; round++) {
+            CompletableFuture<?> done = CompletableFuture.runAsync(() -> created.forEach(task -> repository.markDoneById(task.getId())));
+            created.forEach(task -> repository.updateTask(new Task(task.getId(), task.getTitle(), false)));
+            done.join();
+
+            List<Long> open = created.stream().map(Task::getId)
+                    .filter(id -> !repository.findById(id).isDone())
+                    .toList();
+            assertEquals(open, repository.findOpen().stream().map(Task::getId).toList());
+        }
+    }
+}
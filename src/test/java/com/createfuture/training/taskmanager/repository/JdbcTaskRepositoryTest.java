@@ -0,0 +1,74 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskBulkResult.Outcome;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcTaskRepositoryTest extends TaskRepositoryContractTest {
+
+    private EmbeddedDatabase database;
+
+    @Test
+    void tenants_ShouldOnlySeeAndChangeTheirOwnTasks() {
+        Task own = repository.addTask("Default task");
+        Task other = TenantContext.call("acme", () -> repository.addTask("Acme task"));
+
+        assertNull(repository.findById(other.getId()));
+        assertEquals(0, repository.markDoneById(other.getId()));
+        assertEquals(0, repository.deleteById(other.getId()));
+        assertEquals(List.of(own.getId()), repository.findOpen().stream().map(Task::getId).toList());
+
+        TenantContext.run("acme", () -> {
+            assertEquals(List.of(other.getId()), repository.findIds(null, null, 0, 10));
+            assertEquals(Outcome.NOT_FOUND, repository.markDoneEach(List.of(own.getId())).get(own.getId()));
+            repository.reset();
+            assertTrue(repository.findAll().isEmpty());
+        });
+        assertEquals("Default task", repository.findById(own.getId()).getTitle());
+    }
+
+    @Test
+    void findTopN_ShouldReadTheRankIndexInOrder() {
+        String plan = explain(JdbcTaskRepository.TOP_N_SQL, TenantContext.DEFAULT_TENANT, 10);
+
+        assertTrue(plan.contains("IDX_TASKS_TENANT_RANK"), plan);
+        assertTrue(plan.contains("/* index sorted */"), plan);
+    }
+
+    @Test
+    void findOpenAfter_ShouldReadTheOpenIndexInOrder() {
+        String plan = explain(JdbcTaskRepository.OPEN_AFTER_SQL, TenantContext.DEFAULT_TENANT, 0L, 50);
+
+        assertTrue(plan.contains("IDX_TASKS_TENANT_DONE_ID"), plan);
+        assertTrue(plan.contains("/* index sorted */"), plan);
+    }
+
+    private String explain(String sql, Object... args) {
+        return new JdbcTemplate(database).queryForObject("EXPLAIN " + sql, String.class, args);
+    }
+
+    @Override
+    protected TaskRepository createRepository() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/schema.sql")
+                .build();
+        return new JdbcTaskRepository(new JdbcTemplate(database));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+}
@@ -0,0 +1,122 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.service.TaskEvent;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskArchiverTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTaskRepository repository;
+    private final List<TaskEvent> events = new ArrayList<>();
+    private final Cache taskCache = new ConcurrentMapCache("tasks");
+    private TaskArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/schema.sql")
+                .build();
+        repository = new JdbcTaskRepository(new JdbcTemplate(database));
+        // Batches of two, so every test spans several transactions
+        archiver = new TaskArchiver(List.of(database), Duration.ofDays(30), Duration.ZERO, 2, Duration.ZERO,
+                event -> events.add((TaskEvent) event), taskCache, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiver.close();
+        database.shutdown();
+    }
+
+    @Test
+    void archiveDoneBefore_ShouldMoveOnlyDoneTasks() {
+        List<Task> created = repository.addTasks(List.of("1", "2", "3", "4", "5", "6"));
+        List<Long> done = List.of(created.get(0).getId(), created.get(2).getId(), created.get(3).getId(),
+                created.get(5).getId());
+        repository.markDoneByIds(done);
+        taskCache.put(TenantContext.cacheKey(done.get(0)), created.get(0));
+
+        assertEquals(4, archiver.archiveDoneBefore(Instant.now().plusSeconds(1)));
+
+        assertEquals(List.of(created.get(1).getId(), created.get(4).getId()),
+                repository.findAll().stream().map(Task::getId).toList());
+        assertNull(repository.findById(done.get(0)));
+        assertNull(taskCache.get(TenantContext.cacheKey(done.get(0))));
+        assertEquals(done, events.stream().map(TaskEvent::id).sorted().toList());
+        assertTrue(events.stream().allMatch(event -> event.type() == TaskEvent.Type.ARCHIVED));
+        assertEquals(0, archiver.archiveDoneBefore(Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void archiveDoneBefore_ShouldKeepTasksDoneAfterTheCutoff() {
+        Task task = repository.addTask("Just finished");
+        repository.markDoneById(task.getId());
+
+        assertEquals(0, archiver.archiveDoneBefore(Instant.now().minus(Duration.ofDays(30))));
+        assertTrue(repository.findById(task.getId()).isDone());
+    }
+
+    @Test
+    void findDoneAfter_ShouldMergeArchivedAndHotTasksById() {
+        List<Task> created = repository.addTasks(List.of("1", "2", "3", "4"));
+        repository.markDoneByIds(List.of(created.get(0).getId(), created.get(2).getId()));
+        archiver.archiveDoneBefore(Instant.now().plusSeconds(1));
+        repository.markDoneById(created.get(1).getId());
+
+        List<Task> history = repository.findDoneAfter(0L, 10);
+
+        assertEquals(List.of(created.get(0).getId(), created.get(1).getId(), created.get(2).getId()),
+                history.stream().map(Task::getId).toList());
+        assertTrue(history.stream().allMatch(Task::isDone));
+        assertEquals("3", history.get(2).getTitle());
+        assertEquals(List.of(created.get(1).getId()),
+                repository.findDoneAfter(created.get(0).getId(), 1).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void archivedTasks_ShouldStayWithTheirTenant() {
+        Task own = repository.addTask("Default task");
+        Task other = TenantContext.call("acme", () -> repository.addTask("Acme task"));
+        repository.markDoneById(own.getId());
+        TenantContext.run("acme", () -> repository.markDoneById(other.getId()));
+
+        assertEquals(2, archiver.archiveDoneBefore(Instant.now().plusSeconds(1)));
+
+        assertEquals(List.of(own.getId()), repository.findDoneAfter(0L, 10).stream().map(Task::getId).toList());
+        TenantContext.run("acme", () -> {
+            assertEquals(List.of(other.getId()), repository.findDoneAfter(0L, 10).stream().map(Task::getId).toList());
+            repository.reset();
+            assertTrue(repository.findDoneAfter(0L, 10).isEmpty());
+        });
+        assertEquals(1, repository.findDoneAfter(0L, 10).size());
+    }
+
+    @Test
+    void oldestDoneQuery_ShouldReadTheDoneAtIndexInOrder() {
+        String plan = new JdbcTemplate(database).queryForObject("EXPLAIN " + TaskArchiver.OLDEST_DONE_SQL,
+                String.class, Instant.now(), 10);
+
+        assertTrue(plan.contains("IDX_TASKS_DONE_AT"), plan);
+        assertTrue(plan.contains("/* index sorted */"), plan);
+    }
+}
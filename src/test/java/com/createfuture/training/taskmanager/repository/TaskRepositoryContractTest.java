@@ -0,0 +1,298 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskBulkResult.Outcome;
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link TaskRepository} engine must share. Subclasses supply a fresh, empty engine.
+ */
+abstract class TaskRepositoryContractTest {
+
+    protected TaskRepository repository;
+
+    protected abstract TaskRepository createRepository();
+
+    @BeforeEach
+    void setUpRepository() {
+        repository = createRepository();
+    }
+
+    @Test
+    void addTask_ShouldAssignIdAndStartOpen() {
+        Task task = repository.addTask("Task 1");
+
+        assertNotNull(task.getId());
+        assertEquals("Task 1", task.getTitle());
+        assertFalse(task.isDone());
+        assertEquals(task.getTitle(), repository.findById(task.getId()).getTitle());
+    }
+
+    @Test
+    void addTasks_ShouldReturnIncreasingDistinctIdsInInputOrder() {
+        List<Task> created = repository.addTasks(List.of("A", "B", "B"));
+
+        assertEquals(List.of("A", "B", "B"), created.stream().map(Task::getTitle).toList());
+        assertTrue(created.get(0).getId() < created.get(1).getId());
+        assertTrue(created.get(1).getId() < created.get(2).getId());
+        assertEquals(3, repository.findAll().size());
+    }
+
+    @Test
+    void findById_ShouldReturnNullForMissingTask() {
+        assertNull(repository.findById(12345L));
+    }
+
+    @Test
+    void findOpen_ShouldExcludeDoneTasksInIdOrder() {
+        Task first = repository.addTask("First");
+        Task second = repository.addTask("Second");
+        Task third = repository.addTask("Third");
+
+        assertEquals(1, repository.markDoneById(second.getId()));
+
+        assertEquals(List.of(first.getId(), third.getId()), ids(repository.findOpen()));
+        assertTrue(repository.findById(second.getId()).isDone());
+    }
+
+    @Test
+    void findOpenAfter_ShouldPageByIdCursor() {
+        List<Task> created = repository.addTasks(List.of("1", "2", "3", "4", "5"));
+        repository.markDoneById(created.get(1).getId());
+
+        List<Task> firstPage = repository.findOpenAfter(0L, 2);
+        List<Task> secondPage = repository.findOpenAfter(firstPage.get(1).getId(), 2);
+
+        assertEquals(List.of(created.get(0).getId(), created.get(2).getId()), ids(firstPage));
+        assertEquals(List.of(created.get(3).getId(), created.get(4).getId()), ids(secondPage));
+        assertTrue(repository.findOpenAfter(created.get(4).getId(), 2).isEmpty());
+    }
+
+    @Test
+    void findOpenColumns_ShouldMatchFindOpen() {
+        List<Task> created = repository.addTasks(List.of("1", "2", "3"));
+        repository.markDoneById(created.get(1).getId());
+
+        TaskColumns columns = repository.findOpenColumns();
+
+        assertEquals(ids(repository.findOpen()), List.of(columns.id(0), columns.id(1)));
+        assertEquals(2, columns.size());
+        assertEquals("3", columns.title(1));
+    }
+
+    @Test
+    void findTopN_ShouldLimitResults() {
+        repository.addTasks(List.of("1", "2", "3"));
+
+        assertEquals(2, repository.findTopN(2).size());
+        assertEquals(3, repository.findTopN(10).size());
+        assertTrue(repository.findTopN(0).isEmpty());
+    }
+
+    @Test
+    void findTopN_ShouldRankOpenTasksByPriorityThenDueDate() {
+        Task undated = repository.addTask(new Task(null, "Undated", false, 2, null));
+        Task later = repository.addTask(new Task(null, "Later", false, 2, LocalDate.of(2026, 12, 1)));
+        Task sooner = repository.addTask(new Task(null, "Sooner", false, 2, LocalDate.of(2026, 11, 1)));
+        Task urgent = repository.addTask(new Task(null, "Urgent", false, 5, null));
+        Task done = repository.addTask(new Task(null, "Done", false, 9, LocalDate.of(2026, 10, 1)));
+        Task low = repository.addTask("Low");
+        repository.markDoneById(done.getId());
+
+        assertEquals(List.of(urgent.getId(), sooner.getId(), later.getId(), undated.getId(), low.getId()),
+                ids(repository.findTopN(10)));
+        assertEquals(List.of(urgent.getId(), sooner.getId()), ids(repository.findTopN(2)));
+        assertEquals(LocalDate.of(2026, 11, 1), repository.findTopN(2).get(1).getDueDate());
+    }
+
+    @Test
+    void findTopN_ShouldFollowPriorityChanges() {
+        Task first = repository.addTask(new Task(null, "First", false, 1, null));
+        Task second = repository.addTask(new Task(null, "Second", false, 0, null));
+
+        repository.updateTask(new Task(second.getId(), "Second", false, 3, null));
+
+        assertEquals(List.of(second.getId(), first.getId()), ids(repository.findTopN(10)));
+        assertEquals(3, repository.findById(second.getId()).getPriority());
+    }
+
+    @Test
+    void forEach_ShouldVisitTasksMatchingDoneFilter() {
+        Task done = repository.addTask("Done");
+        Task open = repository.addTask("Open");
+        repository.markDoneById(done.getId());
+
+        List<Task> visitedDone = new ArrayList<>();
+        List<Task> visitedOpen = new ArrayList<>();
+        List<Task> visitedAll = new ArrayList<>();
+        repository.forEach(true, visitedDone::add);
+        repository.forEach(false, visitedOpen::add);
+        repository.forEach(null, visitedAll::add);
+
+        assertEquals(List.of(done.getId()), ids(visitedDone));
+        assertEquals(List.of(open.getId()), ids(visitedOpen));
+        assertEquals(List.of(done.getId(), open.getId()), ids(visitedAll));
+    }
+
+    @Test
+    void markDoneById_ShouldReturnZeroForMissingTask() {
+        assertEquals(0, repository.markDoneById(12345L));
+    }
+
+    @Test
+    void updateTask_ShouldReplaceTitleAndDoneFlag() {
+        Task task = repository.addTask("Before");
+
+        assertEquals(1, repository.updateTask(new Task(task.getId(), "After", true)));
+        assertEquals(0, repository.updateTask(new Task(12345L, "Missing", false)));
+
+        Task updated = repository.findById(task.getId());
+        assertEquals("After", updated.getTitle());
+        assertTrue(updated.isDone());
+        assertTrue(repository.findOpen().isEmpty());
+    }
+
+    @Test
+    void everyChange_ShouldBumpTheVersion() {
+        Task task = repository.addTask("Versioned");
+        assertEquals(0, task.getVersion());
+
+        repository.updateTask(new Task(task.getId(), "Renamed", false));
+        assertEquals(1, repository.findById(task.getId()).getVersion());
+        repository.markDoneById(task.getId());
+        assertEquals(2, repository.findById(task.getId()).getVersion());
+    }
+
+    @Test
+    void updateTaskIfVersion_ShouldApplyOnlyAtTheExpectedVersion() {
+        Task task = repository.addTask("Before");
+        repository.markDoneById(task.getId());
+        Task changes = new Task(null, "After", false, 3, LocalDate.of(2026, 10, 31));
+
+        assertNull(repository.updateTaskIfVersion(task.getId(), changes, 0));
+        Task updated = repository.updateTaskIfVersion(task.getId(), changes, 1);
+
+        assertEquals(2, updated.getVersion());
+        assertEquals("After", updated.getTitle());
+        assertEquals(3, updated.getPriority());
+        assertEquals(LocalDate.of(2026, 10, 31), updated.getDueDate());
+        assertTrue(updated.isDone(), "the done flag is not one of the replaced fields");
+        assertEquals(2, repository.findById(task.getId()).getVersion());
+        assertNull(repository.updateTaskIfVersion(task.getId(), changes, 1));
+        assertNull(repository.updateTaskIfVersion(12345L, changes, 0));
+    }
+
+    @Test
+    void deleteById_ShouldRemoveTask() {
+        Task task = repository.addTask("Delete me");
+
+        assertEquals(1, repository.deleteById(task.getId()));
+        assertEquals(0, repository.deleteById(task.getId()));
+        assertNull(repository.findById(task.getId()));
+        assertTrue(repository.findOpen().isEmpty());
+    }
+
+    @Test
+    void bulkOperations_ShouldReportAffectedRows() {
+        List<Task> created = repository.addTasks(List.of("1", "2", "3"));
+
+        assertEquals(2, repository.markDoneByIds(List.of(created.get(0).getId(), created.get(1).getId(), 12345L)));
+        assertEquals(List.of(created.get(2).getId()), ids(repository.findOpen()));
+        assertEquals(1, repository.deleteByIds(List.of(created.get(0).getId(), 12345L)));
+        assertEquals(2, repository.findAll().size());
+    }
+
+    @Test
+    void findIds_ShouldFilterByDoneAndTitlePrefixAfterCursor() {
+        List<Task> created = repository.addTasks(List.of("Sprint 1 a", "Sprint 1 b", "Sprint 10", "Sprint_1", "Other"));
+        repository.markDoneById(created.get(1).getId());
+
+        assertEquals(ids(created), repository.findIds(null, null, 0L, 10));
+        assertEquals(List.of(created.get(1).getId()), repository.findIds(true, null, 0L, 10));
+        assertEquals(List.of(created.get(0).getId(), created.get(1).getId(), created.get(2).getId()),
+                repository.findIds(null, "Sprint 1", 0L, 10));
+        assertEquals(List.of(created.get(0).getId(), created.get(2).getId()),
+                repository.findIds(false, "Sprint 1", 0L, 10));
+        // LIKE wildcards in the prefix match only themselves
+        assertEquals(List.of(created.get(3).getId()), repository.findIds(null, "Sprint_", 0L, 10));
+        assertEquals(List.of(created.get(2).getId(), created.get(3).getId()),
+                repository.findIds(false, "Sprint", created.get(0).getId(), 2));
+    }
+
+    @Test
+    void findDoneAfter_ShouldPageDoneTasksById() {
+        List<Task> created = repository.addTasks(List.of("1", "2", "3", "4"));
+        repository.markDoneByIds(List.of(created.get(0).getId(), created.get(2).getId(), created.get(3).getId()));
+
+        List<Task> firstPage = repository.findDoneAfter(0L, 2);
+        assertEquals(List.of(created.get(0).getId(), created.get(2).getId()), ids(firstPage));
+        assertTrue(firstPage.stream().allMatch(Task::isDone));
+        assertEquals(List.of(created.get(3).getId()), ids(repository.findDoneAfter(created.get(2).getId(), 2)));
+    }
+
+    @Test
+    void markDoneEach_ShouldReportEveryDistinctIdInInputOrder() {
+        List<Task> created = repository.addTasks(List.of("1", "2", "3"));
+        long open = created.get(0).getId();
+        long done = created.get(1).getId();
+        repository.markDoneById(done);
+
+        Map<Long, Outcome> outcomes = repository.markDoneEach(List.of(12345L, done, open, open));
+
+        assertEquals(List.of(12345L, done, open), List.copyOf(outcomes.keySet()));
+        assertEquals(List.of(Outcome.NOT_FOUND, Outcome.ALREADY_DONE, Outcome.DONE), List.copyOf(outcomes.values()));
+        assertEquals(List.of(created.get(2).getId()), ids(repository.findOpen()));
+    }
+
+    @Test
+    void deleteEach_ShouldReportEveryDistinctIdInInputOrder() {
+        List<Task> created = repository.addTasks(List.of("1", "2"));
+        long first = created.get(0).getId();
+
+        Map<Long, Outcome> outcomes = repository.deleteEach(List.of(first, 12345L, first));
+
+        assertEquals(Map.of(first, Outcome.DELETED, 12345L, Outcome.NOT_FOUND), outcomes);
+        assertNull(repository.findById(first));
+        assertEquals(1, repository.findAll().size());
+    }
+
+    @Test
+    void bulkOutcomes_ShouldSpanSeveralChunks() {
+        List<Task> created = repository.addTasks(LongStream.range(0, 2500).mapToObj(i -> "Task " + i).toList());
+        List<Long> ids = new ArrayList<>(ids(created));
+        ids.add(12345678L);
+
+        Map<Long, Outcome> done = repository.markDoneEach(ids);
+        Map<Long, Outcome> deleted = repository.deleteEach(ids.subList(0, 1500));
+
+        assertEquals(2500, done.values().stream().filter(outcome -> outcome == Outcome.DONE).count());
+        assertEquals(Outcome.NOT_FOUND, done.get(12345678L));
+        assertEquals(1500, deleted.values().stream().filter(outcome -> outcome == Outcome.DELETED).count());
+        assertEquals(1000, repository.findAll().size());
+        assertTrue(repository.findOpen().isEmpty());
+    }
+
+    @Test
+    void reset_ShouldRemoveEveryTask() {
+        repository.addTasks(List.of("1", "2"));
+
+        repository.reset();
+
+        assertTrue(repository.findAll().isEmpty());
+        assertTrue(repository.findOpen().isEmpty());
+    }
+
+    private static List<Long> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+}
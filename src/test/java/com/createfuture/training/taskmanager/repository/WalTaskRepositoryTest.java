@@ -0,0 +1,253 @@
+package com.createfuture.training.taskmanager.repository;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.WalTaskRepository.FsyncPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalTaskRepositoryTest extends TaskRepositoryContractTest {
+
+    @TempDir
+    Path directory;
+
+    @Override
+    protected TaskRepository createRepository() {
+        return open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            ((WalTaskRepository) repository).close();
+        }
+    }
+
+    @Test
+    void restart_ShouldReplayEveryMutationKind() {
+        List<Task> created = repository.addTasks(List.of("Keep", "Done", "Rename", "Delete"));
+        repository.markDoneById(created.get(1).getId());
+        repository.updateTask(new Task(created.get(2).getId(), "Renamed", false));
+        repository.deleteById(created.get(3).getId());
+
+        List<Task> before = repository.findAll();
+        reopen();
+
+        assertTasksEqual(before, repository.findAll());
+        assertEquals(List.of(created.get(0).getId(), created.get(2).getId()),
+                repository.findOpen().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void restart_ShouldReplayResetAndKeepAssigningNewIds() {
+        Task old = repository.addTask("Old");
+        repository.reset();
+        Task fresh = repository.addTask("Fresh");
+
+        reopen();
+
+        assertEquals(List.of("Fresh"), repository.findAll().stream().map(Task::getTitle).toList());
+        assertTrue(repository.addTask("After restart").getId() > Math.max(old.getId(), fresh.getId()));
+    }
+
+    @Test
+    void snapshot_ShouldReplaceOlderSegmentsAndRecoverWithTail() throws IOException {
+        repository.addTasks(titles(5_000));
+        repository.updateTask(new Task(3L, "Ranked before the snapshot", false, -1, LocalDate.of(1969, 12, 31)));
+        assertTrue(segmentFiles() > 1, "the small segment size should force rolling");
+
+        ((WalTaskRepository) repository).snapshot();
+        assertEquals(1, segmentFiles());
+
+        Task tail = repository.addTask("Written after the snapshot");
+        repository.updateTask(new Task(2L, "Ranked", false, 4, LocalDate.of(2026, 11, 30)));
+        repository.deleteById(1L);
+        List<Task> before = repository.findAll();
+        reopen();
+
+        assertTasksEqual(before, repository.findAll());
+        assertEquals("Written after the snapshot", repository.findById(tail.getId()).getTitle());
+    }
+
+    @Test
+    void snapshot_ShouldNotReuseDeletedHighestId() {
+        Task last = repository.addTasks(List.of("A", "B")).get(1);
+        repository.deleteById(last.getId());
+        ((WalTaskRepository) repository).snapshot();
+
+        reopen();
+
+        assertTrue(repository.addTask("C").getId() > last.getId());
+    }
+
+    @Test
+    void restart_ShouldKeepPriorityAndDueDate() {
+        Task ranked = repository.addTask(new Task(null, "Ranked", false, 3, LocalDate.of(2026, 10, 31)));
+        repository.addTask("Unranked");
+
+        reopen();
+
+        Task recovered = repository.findById(ranked.getId());
+        assertEquals(3, recovered.getPriority());
+        assertEquals(LocalDate.of(2026, 10, 31), recovered.getDueDate());
+        assertEquals(ranked.getId(), repository.findTopN(1).get(0).getId());
+    }
+
+    @Test
+    void restart_ShouldKeepVersionsFromLogAndSnapshot() {
+        Task snapshotted = repository.addTask("Snapshotted");
+        repository.markDoneById(snapshotted.getId());
+        ((WalTaskRepository) repository).snapshot();
+        Task logged = repository.addTask("Logged");
+        repository.updateTaskIfVersion(logged.getId(), new Task("Renamed"), 0);
+
+        reopen();
+
+        assertEquals(1, repository.findById(snapshotted.getId()).getVersion());
+        assertEquals(1, repository.findById(logged.getId()).getVersion());
+        assertNull(repository.updateTaskIfVersion(logged.getId(), new Task("Stale"), 0));
+    }
+
+    @Test
+    void restart_ShouldIgnoreTornRecordAtTail() throws IOException {
+        repository.addTasks(List.of("A", "B", "C"));
+        ((WalTaskRepository) repository).close();
+
+        Path segment = lastSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Each record is an 8-byte frame plus 31 payload bytes; corrupt the third record's title
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), 2 * 39 + 8 + 30);
+        }
+        repository = open();
+
+        assertEquals(List.of("A", "B"), repository.findAll().stream().map(Task::getTitle).toList());
+        // The torn segment is no longer the newest, and its tail must still read as a clean end
+        repository.addTask("D");
+        reopen();
+        assertEquals(List.of("A", "B", "D"), repository.findAll().stream().map(Task::getTitle).toList());
+    }
+
+    @Test
+    void restart_ShouldFailOnACorruptRecordBeforeTheNewestSegment() throws IOException {
+        repository.addTasks(List.of("A", "B", "C"));
+        Path corrupted = lastSegment();
+        reopen();
+        repository.deleteById(repository.findAll().get(1).getId());
+        ((WalTaskRepository) repository).close();
+
+        try (FileChannel channel = FileChannel.open(corrupted, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), 39 + 8 + 30);
+        }
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, this::open);
+        assertTrue(failure.getMessage().contains(corrupted.getFileName().toString()));
+        assertTrue(failure.getMessage().contains("offset 39"));
+        repository = null;
+    }
+
+    @Test
+    void groupCommit_ShouldPersistConcurrentWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 8; writer++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        repository.addTask("Concurrent");
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        reopen();
+
+        List<Task> recovered = repository.findAll();
+        assertEquals(1600, recovered.size());
+        assertEquals(1600, recovered.stream().map(Task::getId).distinct().count());
+    }
+
+    @Test
+    void refusedAppend_ShouldLeaveMemoryAsTheLogHasIt() {
+        Task kept = repository.addTask("Kept");
+        String oversized = "x".repeat((int) DataSize.ofKilobytes(70).toBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> repository.addTask(oversized));
+        assertThrows(IllegalArgumentException.class, () -> repository.updateTask(new Task(kept.getId(), oversized, true)));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.updateTaskIfVersion(kept.getId(), new Task(oversized), kept.getVersion()));
+
+        List<Task> before = repository.findAll();
+        assertEquals(List.of(kept.getId()), repository.findOpen().stream().map(Task::getId).toList());
+        assertEquals("Kept", repository.findById(kept.getId()).getTitle());
+        assertEquals(kept.getVersion(), repository.findById(kept.getId()).getVersion());
+        reopen();
+        assertTasksEqual(before, repository.findAll());
+    }
+
+    private WalTaskRepository open() {
+        return new WalTaskRepository(directory, DataSize.ofKilobytes(64), FsyncPolicy.ALWAYS,
+                Duration.ofMillis(10), Duration.ZERO, Thread.ofPlatform());
+    }
+
+    private void reopen() {
+        ((WalTaskRepository) repository).close();
+        repository = open();
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log"))
+                    .max(Path::compareTo)
+                    .orElseThrow();
+        }
+    }
+
+    private static List<String> titles(int count) {
+        List<String> titles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            titles.add("Task " + i);
+        }
+        return titles;
+    }
+
+    private static void assertTasksEqual(List<Task> expected, List<Task> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getTitle(), actual.get(i).getTitle());
+            assertEquals(expected.get(i).isDone(), actual.get(i).isDone());
+            assertEquals(expected.get(i).getPriority(), actual.get(i).getPriority());
+            assertEquals(expected.get(i).getDueDate(), actual.get(i).getDueDate());
+            assertEquals(expected.get(i).getVersion(), actual.get(i).getVersion());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.createfuture.training.taskmanager.service;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TaskDataVersionTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskDataVersion taskDataVersion;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        taskService.resetTasks();
+    }
+
+    @Test
+    void everyMutation_ShouldBumpTheVersion() {
+        long version = taskDataVersion.current();
+
+        Task task = taskService.addTask("Task");
+        assertTrue(taskDataVersion.current() > version);
+
+        version = assertBumped(version, () -> taskService.updateTask(task.getId(), "Renamed"));
+        version = assertBumped(version, () -> taskService.markDone(task.getId()));
+        version = assertBumped(version, () -> taskService.deleteTask(task.getId()));
+        version = assertBumped(version, () -> taskService.addTasks(List.of("A", "B")));
+        assertBumped(version, () -> taskService.resetTasks());
+    }
+
+    @Test
+    void reads_ShouldNotBumpTheVersion() {
+        taskService.addTask("Task");
+        long version = taskDataVersion.current();
+
+        taskService.getAllTasks();
+        taskService.getTopNTasks(5);
+
+        assertEquals(version, taskDataVersion.current());
+        assertEquals(taskDataVersion.etagOf(version), taskDataVersion.etag());
+    }
+
+    @Test
+    void transactionalMutation_ShouldBumpOnlyAfterCommit() {
+        long version = taskDataVersion.current();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            taskService.addTask("Inside transaction");
+            assertEquals(version, taskDataVersion.current());
+        });
+
+        assertTrue(taskDataVersion.current() > version);
+    }
+
+    @Test
+    void forgottenTenant_ShouldNeverGoBackToAnOlderVersion() {
+        TaskDataVersion bounded = new TaskDataVersion(2);
+        TenantContext.run("acme", () -> bounded.onTaskEvent(TaskEvent.reset()));
+        long acme = TenantContext.call("acme", bounded::current);
+
+        for (int tenant = 0; tenant < 1000; tenant++) {
+            TenantContext.run("tenant-" + tenant, () -> bounded.onTaskEvent(TaskEvent.reset()));
+        }
+
+        assertTrue(TenantContext.call("acme", bounded::current) >= acme);
+        TenantContext.run("acme", () -> bounded.onTaskEvent(TaskEvent.reset()));
+        assertTrue(TenantContext.call("acme", bounded::current) > acme);
+    }
+
+    private long assertBumped(long before, Runnable mutation) {
+        mutation.run();
+        long after = taskDataVersion.current();
+        assertTrue(after > before);
+        return after;
+    }
+}
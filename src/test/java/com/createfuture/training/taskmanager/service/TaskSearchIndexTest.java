@@ -0,0 +1,171 @@
+package com.createfuture.training.taskmanager.service;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSearchIndexTest {
+
+    private TaskSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TaskSearchIndex(Mockito.mock(TaskRepository.class));
+        index.onTaskEvent(TaskEvent.created(new Task(1L, "Feed the dog")));
+        index.onTaskEvent(TaskEvent.created(new Task(2L, "Walk the dog, then feed the cat")));
+        index.onTaskEvent(TaskEvent.created(new Task(3L, "Buy dog food")));
+        index.onTaskEvent(TaskEvent.created(new Task(4L, "File taxes")));
+    }
+
+    @Test
+    void search_ShouldRankTasksMatchingMoreTermsFirst() {
+        assertEquals(List.of(1L, 2L, 3L), ids(index.search("feed dog", 0, 10)));
+    }
+
+    @Test
+    void search_ShouldMatchPrefixesBelowExactTokens() {
+        index.onTaskEvent(TaskEvent.created(new Task(5L, "Foo fighters tickets")));
+
+        assertEquals(List.of(5L, 3L), ids(index.search("foo", 0, 10)));
+        assertEquals(List.of(3L, 5L), ids(index.search("fo", 0, 10)));
+        assertEquals(List.of(1L, 2L, 3L), ids(index.search("DO", 0, 10)));
+    }
+
+    @Test
+    void search_ShouldPaginateRankedResults() {
+        assertEquals(List.of(1L, 2L), ids(index.search("dog", 0, 2)));
+        assertEquals(List.of(3L), ids(index.search("dog", 2, 2)));
+        assertTrue(index.search("dog", 3, 2).isEmpty());
+        assertTrue(index.search("  ", 0, 2).isEmpty());
+    }
+
+    @Test
+    void events_ShouldKeepIndexCurrent() {
+        index.onTaskEvent(TaskEvent.updated(new Task(4L, "Feed the fish")));
+        index.onTaskEvent(TaskEvent.deleted(1L));
+        index.onTaskEvent(TaskEvent.done(2L));
+
+        assertTrue(index.search("taxes", 0, 10).isEmpty());
+        assertEquals(List.of(2L, 4L), ids(index.search("feed", 0, 10)));
+        assertTrue(index.search("cat", 0, 10).get(0).isDone());
+
+        index.onTaskEvent(TaskEvent.reset());
+        assertEquals(0, index.size());
+        assertTrue(index.search("feed", 0, 10).isEmpty());
+    }
+
+    @Test
+    void rebuild_ShouldLoadEveryTaskFromRepository() {
+        TaskRepository repository = Mockito.mock(TaskRepository.class);
+        Mockito.doAnswer(invocation -> {
+            Consumer<Task> action = invocation.getArgument(1);
+            action.accept(new Task(7L, "Stored task", true));
+            return null;
+        }).when(repository).forEach(Mockito.isNull(), Mockito.any());
+
+        TaskSearchIndex rebuilt = new TaskSearchIndex(repository);
+        rebuilt.afterSingletonsInstantiated();
+
+        assertEquals(List.of(7L), ids(rebuilt.search("stored", 0, 10)));
+    }
+
+    @Test
+    void search_ShouldOnlySeeTheCurrentTenantsTasks() {
+        TaskRepository repository = Mockito.mock(TaskRepository.class);
+        Mockito.doAnswer(invocation -> {
+            Consumer<Task> action = invocation.getArgument(1);
+            if (TenantContext.current().equals("acme")) {
+                action.accept(new Task(1L, "Acme dog walk"));
+            }
+            return null;
+        }).when(repository).forEach(Mockito.isNull(), Mockito.any());
+        TaskSearchIndex partitioned = new TaskSearchIndex(repository);
+        partitioned.afterSingletonsInstantiated();
+        partitioned.onTaskEvent(TaskEvent.created(new Task(1L, "Default dog walk")));
+
+        List<Task> acme = TenantContext.call("acme", () -> partitioned.search("dog", 0, 10));
+        TenantContext.run("acme", () -> partitioned.onTaskEvent(TaskEvent.created(new Task(2L, "Acme dog food"))));
+
+        assertEquals("Acme dog walk", acme.get(0).getTitle());
+        assertEquals(List.of(1L, 2L), TenantContext.call("acme", () -> ids(partitioned.search("dog", 0, 10))));
+        assertEquals("Default dog walk", partitioned.search("dog", 0, 10).get(0).getTitle());
+        assertEquals(1, partitioned.size());
+    }
+
+    @Test
+    void eventsDuringABuild_ShouldBeQueuedAndReplayedAfterIt() {
+        TaskRepository repository = Mockito.mock(TaskRepository.class);
+        AtomicReference<TaskSearchIndex> building = new AtomicReference<>();
+        Mockito.doAnswer(invocation -> {
+            Consumer<Task> action = invocation.getArgument(1);
+            action.accept(new Task(1L, "Acme dog walk"));
+            // Committed while the table is being read: the rename must win over the row read above
+            TenantContext.run("acme", () -> building.get().onTaskEvent(TaskEvent.updated(new Task(1L, "Acme cat walk"))));
+            return null;
+        }).when(repository).forEach(Mockito.isNull(), Mockito.any());
+        building.set(new TaskSearchIndex(repository));
+
+        assertTrue(TenantContext.call("acme", () -> building.get().search("dog", 0, 10)).isEmpty());
+        assertEquals(List.of(1L), TenantContext.call("acme", () -> ids(building.get().search("cat", 0, 10))));
+    }
+
+    @Test
+    void failedBuild_ShouldBeRetriedOnTheNextSearch() {
+        TaskRepository repository = Mockito.mock(TaskRepository.class);
+        Mockito.doThrow(new IllegalStateException("database down"))
+                .doAnswer(invocation -> {
+                    Consumer<Task> action = invocation.getArgument(1);
+                    action.accept(new Task(1L, "Acme dog walk"));
+                    return null;
+                })
+                .when(repository).forEach(Mockito.isNull(), Mockito.any());
+        TaskSearchIndex retried = new TaskSearchIndex(repository);
+
+        assertThrows(IllegalStateException.class, () -> TenantContext.call("acme", () -> retried.search("dog", 0, 10)));
+        assertEquals(List.of(1L), TenantContext.call("acme", () -> ids(retried.search("dog", 0, 10))));
+    }
+
+    @Test
+    void search_ShouldOnlyMatchWholeTokensForTermsShorterThanThePrefixMinimum() {
+        index.onTaskEvent(TaskEvent.created(new Task(5L, "Plan a trip")));
+
+        assertEquals(List.of(5L), ids(index.search("a", 0, 10)));
+        assertTrue(index.search("f", 0, 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldCapPrefixCandidatesAndNotOverflowOnLargePages() {
+        for (long id = 100; id < 100 + TaskSearchIndex.MAX_CANDIDATES + 50; id++) {
+            index.onTaskEvent(TaskEvent.created(new Task(id, "Ticket ab" + id)));
+        }
+
+        assertEquals(TaskSearchIndex.MAX_CANDIDATES, index.search("ab", 0, Integer.MAX_VALUE).size());
+        assertTrue(index.search("ab", Integer.MAX_VALUE, Integer.MAX_VALUE).isEmpty());
+        assertEquals(List.of(4L), ids(index.search("taxes", 0, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void removingTheLastTaskWithAToken_ShouldDropItsPostingSet() {
+        int tokens = index.tokenCount();
+
+        index.onTaskEvent(TaskEvent.created(new Task(4L, "File receipts")));
+        index.onTaskEvent(TaskEvent.deleted(3L));
+
+        assertEquals(tokens - 2, index.tokenCount());
+        assertTrue(index.search("taxes", 0, 10).isEmpty());
+        assertTrue(index.search("buy", 0, 10).isEmpty());
+    }
+
+    private static List<Long> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+}
@@ -1,32 +1,55 @@
 package com.createfuture.training.taskmanager.service;
 
+import com.createfuture.training.taskmanager.CacheConfig;
 import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskBulkResult;
+import com.createfuture.training.taskmanager.model.TaskBulkResult.Outcome;
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import com.createfuture.training.taskmanager.model.TaskSelector;
 import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
 
-@SpringBootTest
+// Small bulk sizes, so chunking and the match cap are covered without inserting thousands of rows
+@SpringBootTest(properties = {
+        "tasks.bulk.chunk-size=" + TaskServiceTest.BULK_CHUNK_SIZE,
+        "tasks.bulk.max-matches=" + TaskServiceTest.MAX_BULK_MATCHES
+})
 @ActiveProfiles("test")
 @Transactional
 public class TaskServiceTest {
 
+    static final int BULK_CHUNK_SIZE = 4;
+    static final int MAX_BULK_MATCHES = 10;
+
     @Autowired
     private TaskService taskService;
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     private TaskRepository repository;
 
     @BeforeEach
@@ -46,6 +69,28 @@ public class TaskServiceTest {
         assertEquals(1, count);
     }
 
+    @Test
+    void addTask_ShouldReturnDistinctIdsForDuplicateTitles() {
+        Task first = taskService.addTask("Same title");
+        Task second = taskService.addTask("Same title");
+
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    void addTasks_ShouldInsertAllTitlesAndReturnGeneratedIds() {
+        List<String> titles = IntStream.range(0, 2500).mapToObj(i -> "Bulk " + i).toList();
+
+        List<Task> created = taskService.addTasks(titles);
+
+        assertEquals(titles.size(), created.size());
+        assertEquals(titles.size(), created.stream().map(Task::getId).distinct().count());
+        Task last = created.get(created.size() - 1);
+        assertEquals("Bulk 2499", jdbcTemplate.queryForObject(
+                "SELECT title FROM tasks WHERE id = ?", String.class, last.getId()));
+    }
+
     @Test
     void getAllTasks_ShouldReturnAllTasks() {
         taskService.addTask("Task 1");
@@ -58,6 +103,67 @@ public class TaskServiceTest {
         assertEquals("Task 2", tasks.get(1).getTitle());
     }
 
+    @Test
+    void getAllTasks_ShouldExcludeDoneTasks() {
+        Task done = taskService.addTask("Done Task");
+        taskService.addTask("Open Task");
+        taskService.markDone(done.getId());
+
+        List<Task> tasks = taskService.getAllTasks();
+
+        assertEquals(1, tasks.size());
+        assertEquals("Open Task", tasks.get(0).getTitle());
+    }
+
+    @Test
+    void getOpenTaskColumns_ShouldMatchGetAllTasks() {
+        Task done = taskService.addTask("Done Task");
+        taskService.addTask("Open Task");
+        taskService.addTask("Ünïcode Task");
+        taskService.markDone(done.getId());
+
+        List<Task> expected = taskService.getAllTasks();
+        TaskColumns columns = taskService.getOpenTaskColumns();
+
+        assertEquals(expected.size(), columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            assertEquals(expected.get(row).getId(), columns.id(row));
+            assertEquals(expected.get(row).getTitle(), columns.title(row));
+            assertFalse(columns.isDone(row));
+        }
+    }
+
+    @Test
+    void getOpenTasks_ShouldPageByIdCursor() {
+        Task first = taskService.addTask("Task 1");
+        Task second = taskService.addTask("Task 2");
+        Task third = taskService.addTask("Task 3");
+        taskService.markDone(second.getId());
+
+        List<Task> firstPage = taskService.getOpenTasks(null, 1);
+        List<Task> secondPage = taskService.getOpenTasks(firstPage.get(0).getId(), 1);
+        List<Task> lastPage = taskService.getOpenTasks(secondPage.get(0).getId(), 1);
+
+        assertEquals(first.getId(), firstPage.get(0).getId());
+        assertEquals(third.getId(), secondPage.get(0).getId());
+        assertTrue(lastPage.isEmpty());
+    }
+
+    @Test
+    void exportTasks_ShouldStreamTasksMatchingDoneFilter() {
+        Task done = taskService.addTask("Done Task");
+        taskService.addTask("Open Task");
+        taskService.markDone(done.getId());
+
+        List<Task> exportedDone = new ArrayList<>();
+        List<Task> exportedAll = new ArrayList<>();
+        taskService.exportTasks(true, exportedDone::add);
+        taskService.exportTasks(null, exportedAll::add);
+
+        assertEquals(List.of("Done Task"), exportedDone.stream().map(Task::getTitle).toList());
+        assertEquals(2, exportedAll.size());
+    }
+
     @Test
     void getTopNTasks_ShouldReturnTopNTasks() {
         taskService.addTask("Task 1");
@@ -103,9 +209,110 @@ public class TaskServiceTest {
         assertTrue(tasks.stream().noneMatch(t -> t.getId().equals(taskId)));
     }
 
+    @Test
+    void findById_ShouldServeRepeatedLookupsFromCache() {
+        Task task = taskService.addTask("Cached Task");
+
+        taskRepository.findById(task.getId());
+        jdbcTemplate.update("UPDATE tasks SET title = 'Changed behind the cache' WHERE id = ?", task.getId());
+
+        assertEquals("Cached Task", taskRepository.findById(task.getId()).getTitle());
+        assertNotNull(cacheManager.getCache(CacheConfig.TASKS_CACHE).get(TenantContext.cacheKey(task.getId())));
+    }
+
+    @Test
+    void markDoneAndUpdate_ShouldInvalidateCachedTask() {
+        Task task = taskService.addTask("Task 1");
+        taskRepository.findById(task.getId());
+
+        taskService.markDone(task.getId());
+        assertTrue(taskRepository.findById(task.getId()).isDone());
+
+        taskService.updateTask(task.getId(), "Renamed");
+        assertEquals("Renamed", taskRepository.findById(task.getId()).getTitle());
+
+        taskService.deleteTask(task.getId());
+        assertNull(taskRepository.findById(task.getId()));
+    }
+
+    @Test
+    void updateTaskWithVersion_ShouldRejectStaleVersionsAndMissingTasks() {
+        Task task = taskService.addTask("Task 1");
+        Task changes = new Task("Renamed");
+
+        Task updated = taskService.updateTask(task.getId(), changes, task.getVersion());
+        assertEquals(task.getVersion() + 1, updated.getVersion());
+        assertEquals("Renamed", taskRepository.findById(task.getId()).getTitle());
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> taskService.updateTask(task.getId(), new Task("Lost update"), task.getVersion()));
+        assertEquals("Renamed", taskRepository.findById(task.getId()).getTitle());
+        assertNull(taskService.updateTask(999L, changes, 0));
+    }
+
+    @Test
+    void updateTask_ShouldNotRevertADoneFlagSetAfterTheRead() {
+        Task task = taskService.addTask("Task 1");
+        // Cached as open, then marked done behind the cache's back
+        taskRepository.findById(task.getId());
+        jdbcTemplate.update("UPDATE tasks SET done = true, version = version + 1 WHERE id = ?", task.getId());
+
+        Task updated = taskService.updateTask(task.getId(), "Renamed");
+
+        assertEquals("Renamed", updated.getTitle());
+        assertTrue(updated.isDone());
+        assertTrue(taskRepository.findById(task.getId()).isDone());
+    }
+
     @Test
     void markDone_ShouldReturnFalseIfTaskNotFound() {
         boolean result = taskService.markDone(999L); // Use a non-existent ID
         assertFalse(result);
     }
+
+    @Test
+    void markDoneBySelector_ShouldResolvePredicateAcrossChunks() {
+        int matching = BULK_CHUNK_SIZE * 2 + 1;
+        taskService.addTasks(IntStream.range(0, matching).mapToObj(i -> "Sprint 12 #" + i).toList());
+        Task other = taskService.addTask("Sprint 13");
+
+        TaskBulkResult result = taskService.markDone(TaskSelector.matching(false, "Sprint 12"));
+
+        assertEquals(matching, result.matched());
+        assertEquals(matching, result.changed());
+        assertEquals(List.of(other.getId()), taskService.getAllTasks().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void markDoneBySelector_ShouldStopAtTheCapAndContinueFromItsCursor() {
+        int matching = MAX_BULK_MATCHES + 3;
+        taskService.addTasks(IntStream.range(0, matching).mapToObj(i -> "Sprint 12 #" + i).toList());
+
+        TaskBulkResult first = taskService.markDone(TaskSelector.matching(false, null));
+        TaskBulkResult rest = taskService.markDone(TaskSelector.matching(false, null), first.nextAfterId());
+
+        assertEquals(MAX_BULK_MATCHES, first.changed());
+        assertNotNull(first.nextAfterId());
+        assertEquals(3, rest.changed());
+        assertNull(rest.nextAfterId());
+        assertTrue(taskService.getAllTasks().isEmpty());
+    }
+
+    @Test
+    void deleteBySelector_ShouldReportPerIdOutcomesAndEvictCache() {
+        Task done = taskService.addTask("Done");
+        Task open = taskService.addTask("Open");
+        taskService.markDone(done.getId());
+        taskRepository.findById(done.getId());
+
+        TaskBulkResult byIds = taskService.deleteTasks(TaskSelector.ofIds(List.of(done.getId(), 999L)));
+        TaskBulkResult byPredicate = taskService.deleteTasks(TaskSelector.matching(true, null));
+
+        assertEquals(Outcome.DELETED, byIds.outcomes().get(done.getId()));
+        assertEquals(Outcome.NOT_FOUND, byIds.outcomes().get(999L));
+        assertEquals(1, byIds.changed());
+        assertEquals(0, byPredicate.matched());
+        assertNull(taskRepository.findById(done.getId()));
+        assertNotNull(taskRepository.findById(open.getId()));
+    }
 }
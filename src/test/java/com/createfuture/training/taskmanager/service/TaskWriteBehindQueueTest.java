@@ -0,0 +1,193 @@
+package com.createfuture.training.taskmanager.service;
+
+import com.createfuture.training.taskmanager.model.Task;
+import com.createfuture.training.taskmanager.model.TaskColumns;
+import com.createfuture.training.taskmanager.repository.TaskRepository;
+import com.createfuture.training.taskmanager.service.TaskWriteBehindQueue.Operation;
+import com.createfuture.training.taskmanager.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// A long flush interval keeps the writer thread idle so each test decides when to flush
+@RecordApplicationEvents
+@SpringBootTest(properties = {
+        "tasks.write-behind.enabled=true",
+        "tasks.write-behind.flush-interval=1h",
+        "tasks.write-behind.max-attempts=2"
+})
+class TaskWriteBehindQueueTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskWriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TaskDataVersion dataVersion;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @MockitoSpyBean
+    private TaskRepository taskRepository;
+
+    @AfterEach
+    void tearDown() {
+        taskService.resetTasks();
+    }
+
+    @Test
+    void markDoneAndDelete_ShouldBeVisibleBeforeTheyAreCommitted() {
+        Task done = taskService.addTask("Done Task");
+        Task deleted = taskService.addTask("Deleted Task");
+        Task open = taskService.addTask("Open Task");
+
+        assertTrue(taskService.markDone(done.getId()));
+        assertTrue(taskService.deleteTask(deleted.getId()));
+
+        assertFalse(isDoneInDatabase(done.getId()));
+        assertEquals(List.of(open.getId()), taskService.getAllTasks().stream().map(Task::getId).toList());
+        assertEquals(List.of(open.getId()), taskService.getOpenTasks(null, 1).stream().map(Task::getId).toList());
+        TaskColumns columns = taskService.getOpenTaskColumns();
+        assertEquals(1, columns.size());
+        assertEquals(open.getId(), columns.id(0));
+        assertTrue(taskService.getTopNTasks(5).stream().filter(t -> t.getId().equals(done.getId())).allMatch(Task::isDone));
+        assertNull(taskService.updateTask(deleted.getId(), "Too late"));
+    }
+
+    @Test
+    void flush_ShouldCommitQueuedOperations() {
+        Task done = taskService.addTask("Done Task");
+        Task deleted = taskService.addTask("Deleted Task");
+        taskService.markDone(done.getId());
+        taskService.deleteTask(deleted.getId());
+
+        assertTrue(writeBehindQueue.flush());
+
+        assertTrue(writeBehindQueue.isEmpty());
+        assertTrue(isDoneInDatabase(done.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tasks WHERE id = ?", Integer.class, deleted.getId()));
+    }
+
+    @Test
+    void enqueue_ShouldMergeRepeatedOperationsOnTheSameId() {
+        Task task = taskService.addTask("Task");
+
+        taskService.markDone(task.getId());
+        taskService.markDone(task.getId());
+        taskService.deleteTask(task.getId());
+        taskService.markDone(task.getId());
+
+        assertEquals(1, writeBehindQueue.size());
+        assertEquals(Operation.DELETE, writeBehindQueue.pendingOperation(task.getId()));
+    }
+
+    @Test
+    void reset_ShouldOnlyDropTheCallingTenantsQueuedOperations() {
+        Task acme = TenantContext.call("acme", () -> taskService.addTask("Acme Task"));
+        Task own = taskService.addTask("Own Task");
+        TenantContext.run("acme", () -> taskService.markDone(acme.getId()));
+        taskService.markDone(own.getId());
+
+        try {
+            taskService.resetTasks();
+
+            assertEquals(1, writeBehindQueue.size());
+            assertEquals(Operation.DONE, TenantContext.call("acme", () -> writeBehindQueue.pendingOperation(acme.getId())));
+            assertTrue(writeBehindQueue.flush());
+            assertTrue(isDoneInDatabase(acme.getId()));
+        } finally {
+            TenantContext.run("acme", taskService::resetTasks);
+        }
+    }
+
+    @Test
+    void getOpenTasks_ShouldOnlyReadPastThePageForOperationsThatHideRowsInIt() {
+        List<Task> tasks = taskService.addTasks(IntStream.range(0, 10).mapToObj(i -> "Task " + i).toList());
+        taskService.markDone(tasks.get(8).getId());
+        taskService.markDone(tasks.get(9).getId());
+        clearInvocations(taskRepository);
+
+        assertEquals(List.of(tasks.get(0).getId(), tasks.get(1).getId()),
+                taskService.getOpenTasks(null, 2).stream().map(Task::getId).toList());
+        verify(taskRepository).findOpenAfter(0L, 2);
+
+        taskService.deleteTask(tasks.get(1).getId());
+        clearInvocations(taskRepository);
+
+        assertEquals(List.of(tasks.get(0).getId(), tasks.get(2).getId()),
+                taskService.getOpenTasks(null, 2).stream().map(Task::getId).toList());
+        verify(taskRepository, times(2)).findOpenAfter(anyLong(), anyInt());
+        verify(taskRepository).findOpenAfter(tasks.get(1).getId(), 1);
+        assertEquals(List.of(tasks.get(0).getId(), tasks.get(2).getId(), tasks.get(3).getId()),
+                taskService.getTopNTasks(3).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void flush_ShouldDropAnOperationThatKeepsFailingWithoutLosingTheRest() {
+        Task good = taskService.addTask("Good Task");
+        Task poison = taskService.addTask("Poison Task");
+        doThrow(new DataIntegrityViolationException("poison"))
+                .when(taskRepository).markDoneEach(argThat(ids -> ids.contains(poison.getId())));
+        taskService.markDone(good.getId());
+        taskService.markDone(poison.getId());
+        events.clear();
+
+        assertFalse(writeBehindQueue.flush());
+        assertEquals(2, writeBehindQueue.size());
+
+        long version = dataVersion.current();
+        assertTrue(writeBehindQueue.flush());
+        assertTrue(writeBehindQueue.isEmpty());
+        assertTrue(isDoneInDatabase(good.getId()));
+        assertFalse(isDoneInDatabase(poison.getId()));
+        // Reads show the poisoned task open again, so cached lists must not keep the version they had
+        assertTrue(dataVersion.current() > version);
+        assertEquals(List.of(TaskEvent.done(good.getId())), events.stream(TaskEvent.class).toList());
+    }
+
+    @Test
+    void events_ShouldOnlyBePublishedForChangesTheWriterCommitted() {
+        Task task = taskService.addTask("Task");
+        long version = dataVersion.current();
+        events.clear();
+
+        taskService.markDone(task.getId());
+        assertTrue(taskService.deleteTask(999_999L));
+
+        assertTrue(dataVersion.current() > version);
+        assertEquals(0, events.stream(TaskEvent.class).count());
+
+        assertTrue(writeBehindQueue.flush());
+
+        assertEquals(List.of(TaskEvent.done(task.getId())), events.stream(TaskEvent.class).toList());
+    }
+
+    private boolean isDoneInDatabase(long id) {
+        return jdbcTemplate.queryForObject("SELECT done FROM tasks WHERE id = ?", Boolean.class, id);
+    }
+}
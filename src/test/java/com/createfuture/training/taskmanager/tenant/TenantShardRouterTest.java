@@ -0,0 +1,43 @@
+package com.createfuture.training.taskmanager.tenant;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantShardRouterTest {
+
+    private static final int TENANTS = 10_000;
+
+    @Test
+    void shardOf_ShouldBeStableAndSpreadTenantsOverEveryShard() {
+        TenantShardRouter router = new TenantShardRouter(4);
+        int[] counts = new int[4];
+        for (int tenant = 0; tenant < TENANTS; tenant++) {
+            counts[router.shardOf("tenant-" + tenant)]++;
+        }
+
+        assertEquals(router.shardOf("acme"), new TenantShardRouter(4).shardOf("acme"));
+        for (int count : counts) {
+            // An even split is 2500 each; virtual nodes keep every shard well within half of that
+            assertTrue(count > TENANTS / 8 && count < TENANTS * 3 / 8, "Uneven split: " + count);
+        }
+    }
+
+    @Test
+    void addingShard_ShouldOnlyMoveTenantsToTheNewShard() {
+        TenantShardRouter before = new TenantShardRouter(4);
+        TenantShardRouter after = new TenantShardRouter(5);
+        int moved = 0;
+        for (int tenant = 0; tenant < TENANTS; tenant++) {
+            int from = before.shardOf("tenant-" + tenant);
+            int to = after.shardOf("tenant-" + tenant);
+            if (from != to) {
+                assertEquals(4, to);
+                moved++;
+            }
+        }
+
+        // About one in five tenants should move; modulo hashing would move four in five
+        assertTrue(moved > TENANTS / 10 && moved < TENANTS * 3 / 10, "Moved " + moved);
+    }
+}